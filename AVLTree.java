@@ -1,5 +1,14 @@
 package project5;
 
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * The class provides a recursive implementation of an AVL tree.
  *
@@ -8,7 +17,7 @@ package project5;
  * @param <E> generic type of data that is stored in nodes of the tree; needs to
  *            implement Comparable<E> interface
  */
-public class AVLTree<E extends Comparable<E>> {
+public class AVLTree<E extends Comparable<E>> implements Iterable<E> {
 
 	/**
 	 * Node class is used to represent nodes in an AVL tree.
@@ -69,6 +78,155 @@ public class AVLTree<E extends Comparable<E>> {
 		}
 	}
 	
+	/**
+	 * NodeSpliterator visits the nodes of a tree in order. The nodes that are left to visit
+	 * are kept as a single head node followed by a stack of nodes, where every node of the
+	 * stack stands for itself and then its whole right subtree (the first node of the stack
+	 * is visited first). Splitting hands out a prefix of that sequence: the whole stack but
+	 * its last node, or, when one node is left, the node and the left half of its right
+	 * subtree. The sizes of the parts are estimated from the heights kept in the nodes.
+	 *
+	 * The tree must not be changed while it is traversed.
+	 *
+	 * @author Sarah Wardles
+	 *
+	 * @param <E> a reference type that implements Comparable<E> interface
+	 */
+	static class NodeSpliterator<E extends Comparable<E>> implements Spliterator<E> {
+
+		private Node<E> head;              // node visited before the stack, may be null
+		private ArrayDeque<Node<E>> stack; // nodes followed by their right subtrees
+		private long estimate;             // estimated number of nodes left
+
+		/**
+		 * Constructs a spliterator over a whole subtree.
+		 * @param root (root of the subtree) and size (number of nodes in it)
+		 */
+		protected NodeSpliterator(Node<E> root, long size) {
+			this.stack = new ArrayDeque<Node<E>>();
+			pushLeft(stack, root);
+			this.estimate = size;
+		}
+
+		/**
+		 * Constructs a spliterator over a head node and a stack.
+		 */
+		private NodeSpliterator(Node<E> head, ArrayDeque<Node<E>> stack, long estimate) {
+			this.head = head;
+			this.stack = stack;
+			this.estimate = estimate;
+		}
+
+		/**
+		 * Helper method that pushes a node and its chain of left children so that the
+		 * leftmost node ends up first.
+		 */
+		private static <E extends Comparable<E>> void pushLeft(ArrayDeque<Node<E>> stack, Node<E> node) {
+			while (node != null) {
+				stack.addFirst(node);
+				node = node.left;
+			}
+		}
+
+		/**
+		 * Helper method that estimates the number of nodes of a subtree from its height.
+		 */
+		private static <E extends Comparable<E>> long estimate(Node<E> node) {
+			if (node == null) {
+				return 0;
+			}
+			//between the sizes of the sparsest and the fullest AVL tree of that height
+			return Math.max(1, ((1L << Math.min(node.height, 62)) * 3) / 4);
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			Node<E> next = head;
+			if (next != null) {
+				head = null;
+			} else {
+				next = stack.pollFirst();
+				if (next == null) {
+					return false;
+				}
+				pushLeft(stack, next.right);
+			}
+			if (estimate > 0) {
+				estimate--;
+			}
+			action.accept(next.data);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			if (head != null) {
+				action.accept(head.data);
+				head = null;
+			}
+			Node<E> next;
+			while ((next = stack.pollFirst()) != null) {
+				pushLeft(stack, next.right);
+				action.accept(next.data);
+			}
+			estimate = 0;
+		}
+
+		@Override
+		public Spliterator<E> trySplit() {
+			NodeSpliterator<E> prefix;
+			if (stack.size() >= 2) {
+				//the prefix gets the head and every node of the stack but the last
+				Node<E> last = stack.pollLast();
+				prefix = new NodeSpliterator<E>(head, stack, 0);
+				head = null;
+				stack = new ArrayDeque<Node<E>>();
+				stack.addFirst(last);
+			} else if (stack.size() == 1 && head == null) {
+				//the prefix gets the node and the left subtree of its right child
+				Node<E> node = stack.peekFirst();
+				if (node.right == null) {
+					return null;
+				}
+				ArrayDeque<Node<E>> left = new ArrayDeque<Node<E>>();
+				pushLeft(left, node.right.left);
+				prefix = new NodeSpliterator<E>(node, left, 0);
+				stack.pollFirst();
+				stack.addFirst(node.right);
+			} else if (stack.size() == 1) {
+				//the prefix gets the head alone
+				prefix = new NodeSpliterator<E>(head, new ArrayDeque<Node<E>>(), 0);
+				head = null;
+			} else {
+				return null;
+			}
+
+			long remaining = 0;
+			for (Node<E> node : stack) {
+				remaining += 1 + estimate(node.right);
+			}
+			remaining = Math.min(remaining, estimate);
+			prefix.estimate = Math.max(estimate - remaining, 1);
+			estimate = remaining;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SORTED | DISTINCT | NONNULL;
+		}
+
+		@Override
+		public Comparator<? super E> getComparator() {
+			return null; // sorted by the natural order of E
+		}
+	}
+	
 	//DATA FIELDS OF AVLTREE CLASS
 	// root of the tree
 	protected Node<E> root;
@@ -255,21 +413,23 @@ public class AVLTree<E extends Comparable<E>> {
 			int balanceFactor = balanceFactor(node);
 			
 			//if unbalanced then determine which case it is and then perform appropriate rotations
+			//the removed item is on the other side of the unbalanced node, so the case is
+			//decided by the balance factor of the taller child
 			//LL
-			if (balanceFactor >= 2 && target.compareTo(node.left.data) < 0) { 
+			if (balanceFactor >= 2 && balanceFactor(node.left) >= 0) { 
 				return rightRotate(node);
 			}
 			//RR
-			if (balanceFactor <= -2 && target.compareTo(node.right.data) > 0) { 
+			if (balanceFactor <= -2 && balanceFactor(node.right) <= 0) { 
 				return leftRotate(node);
 			}
 			//LR
-			if (balanceFactor >= 2 && target.compareTo(node.left.data) > 0) { 
+			if (balanceFactor >= 2 && balanceFactor(node.left) < 0) { 
 				node.left = leftRotate(node.left);
 				return rightRotate(node);
 			}
 			//RL
-			if (balanceFactor <= -2 && target.compareTo(node.right.data) < 0) { 
+			if (balanceFactor <= -2 && balanceFactor(node.right) > 0) { 
 				node.right = rightRotate(node.right);
 				return leftRotate(node);
 			}
@@ -312,6 +472,62 @@ public class AVLTree<E extends Comparable<E>> {
 			return temp.data;
 		}
 
+		/**
+		 * Returns the element of the tree that is equal to the given item. If item is null
+		 * or not found in the tree, null is returned.
+		 *
+		 * @param item the item to search for
+		 * @return the element stored in the tree or null
+		 */
+		public E get(E item) {
+			Node<E> node = root;
+			while (item != null && node != null) {
+				int compare = item.compareTo(node.data);
+				if (compare == 0) {
+					return node.data;
+				}
+				node = compare < 0 ? node.left : node.right;
+			}
+			return null;
+		}
+
+		/**
+		 * Passes every element of the tree between two bounds to an action, in order. A
+		 * bound is compared with the elements of the tree: low.compareTo(e) > 0 means e is
+		 * below the range and high.compareTo(e) < 0 means e is above it. Subtrees that are
+		 * entirely outside the range are never visited. A null bound leaves that side open.
+		 *
+		 * @param low the lower bound or null
+		 * @param high the upper bound or null
+		 * @param action the action to perform on every element in the range
+		 * @return number of nodes visited
+		 */
+		public int scan(Comparable<? super E> low, Comparable<? super E> high, Consumer<? super E> action) {
+			return scan(root, low, high, action);
+		}
+
+		/**
+		 * Actual recursive implementation of the scan() method.
+		 */
+		private int scan(Node<E> node, Comparable<? super E> low, Comparable<? super E> high, Consumer<? super E> action) {
+			if (node == null) {
+				return 0;
+			}
+			boolean aboveLow = low == null || low.compareTo(node.data) <= 0;
+			boolean belowHigh = high == null || high.compareTo(node.data) >= 0;
+			int visited = 1;
+			if (aboveLow) {
+				visited += scan(node.left, low, high, action);
+			}
+			if (aboveLow && belowHigh) {
+				action.accept(node.data);
+			}
+			if (belowHigh) {
+				visited += scan(node.right, low, high, action);
+			}
+			return visited;
+		}
+
 		/**
 		 * Determines the number of elements stored in this AVL tree.
 		 *
@@ -321,6 +537,55 @@ public class AVLTree<E extends Comparable<E>> {
 			return numOfElements;
 		}
 
+		/**
+		 * Returns an iterator over the elements of this tree in order. The tree must not
+		 * be changed while it is iterated over.
+		 *
+		 * @return iterator over the elements of this tree
+		 */
+		@Override
+		public Iterator<E> iterator() {
+			final ArrayDeque<Node<E>> stack = new ArrayDeque<Node<E>>();
+			NodeSpliterator.pushLeft(stack, root);
+			return new Iterator<E>() {
+				@Override
+				public boolean hasNext() {
+					return !stack.isEmpty();
+				}
+
+				@Override
+				public E next() {
+					Node<E> next = stack.pollFirst();
+					if (next == null) {
+						throw new NoSuchElementException();
+					}
+					NodeSpliterator.pushLeft(stack, next.right);
+					return next.data;
+				}
+			};
+		}
+
+		/**
+		 * Returns a spliterator over the elements of this tree in order that splits on
+		 * subtrees, so a parallel stream over the tree hands whole subtrees to each thread.
+		 *
+		 * @return spliterator over the elements of this tree
+		 */
+		@Override
+		public Spliterator<E> spliterator() {
+			return new NodeSpliterator<E>(root, numOfElements);
+		}
+
+		/**
+		 * Returns a sequential stream over the elements of this tree in order. Call
+		 * parallel() on it to aggregate the tree on several cores.
+		 *
+		 * @return stream over the elements of this tree
+		 */
+		public Stream<E> stream() {
+			return StreamSupport.stream(spliterator(), false);
+		}
+
 		/**
 		 * Returns a string representation of this tree using an inorder traversal .
 		 * @see java.lang.Object#toString()
@@ -0,0 +1,86 @@
+package project5;
+
+/**
+ * This class is a YearDirectory whose years are stored as ApproxYearNames objects, so its
+ * memory depends on the number of years and the error bound, not on the number of rows.
+ * @author Sarah Wardles
+ *
+ */
+public class ApproxYearDirectory extends YearDirectory {
+
+	//error settings of the sketches of every year
+	protected double epsilon;
+	protected double delta;
+
+	/**
+	 * This is the constructor for the ApproxYearDirectory object.
+	 * @param epsilon (error of a count as a share of the births of its year, between 0 and 1)
+	 * @param delta (probability that a count is off by more, between 0 and 1)
+	 * @throws IllegalArgumentException (thrown if epsilon or delta is not between 0 and 1)
+	 */
+	public ApproxYearDirectory(double epsilon, double delta) {
+		if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+			throw new IllegalArgumentException("The program must take an error bound between 0 and 1 as a parameter.");
+		}
+		this.epsilon = epsilon;
+		this.delta = delta;
+	}
+
+	/**
+	 * Helper method that creates an ApproxYearNames object for a new year.
+	 * @param year (year to create)
+	 * @return a new, empty ApproxYearNames object
+	 */
+	@Override
+	protected YearNames newYear(int year) {
+		return new ApproxYearNames(year, epsilon, delta);
+	}
+
+	/**
+	 * Method that fills a buffer with the estimated number of babies of a key in every
+	 * year, like YearDirectory.counts(). A key is only found if its estimate in some year is
+	 * above the error bound of that year, see ApproxYearNames.isFound().
+	 * @param key (key of the query) and counts (buffer of at least size() entries)
+	 * @return true if the key was found in any year
+	 * @throws IllegalArgumentException (thrown if the buffer is too short)
+	 */
+	@Override
+	public boolean counts(NameKey key, int[] counts) {
+		super.counts(key, counts);
+		boolean found = false;
+		for (int i = 0; i < size(); i++) {
+			found |= ((ApproxYearNames) yearAt(i)).isFound(key, counts[i]);
+		}
+		return found;
+	}
+
+	/**
+	 * Method that fills a buffer with the estimated fraction of a key in every year, like
+	 * YearDirectory.fractions(). A key is only found like in counts().
+	 * @param key (key of the query) and fractions (buffer of at least size() entries)
+	 * @return true if the key was found in any year
+	 * @throws IllegalArgumentException (thrown if the buffer is too short)
+	 */
+	@Override
+	public boolean fractions(NameKey key, double[] fractions) {
+		super.fractions(key, fractions);
+		boolean found = false;
+		for (int i = 0; i < size() && !found; i++) {
+			ApproxYearNames year = (ApproxYearNames) yearAt(i);
+			found = year.isFound(key, key.hasCounty() ? year.getCountByNameCounty(key) : year.getCountByName(key));
+		}
+		return found;
+	}
+
+	/**
+	 * Helper method that returns the number of bytes used by the sketches of every year.
+	 * @return bytes used by the sketches
+	 */
+	public long sketchBytes() {
+		long bytes = 0;
+		for (YearNames year : this) {
+			bytes += ((ApproxYearNames) year).sketchBytes();
+		}
+		return bytes;
+	}
+}
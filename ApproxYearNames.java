@@ -0,0 +1,173 @@
+package project5;
+
+import java.util.HashMap;
+
+/**
+ * This class is a YearNames object that keeps no rows. Every row only adds its count to
+ * the total of the year, to the total of its county and to two Count-Min sketches, one
+ * keyed on the name and one on the (name, county) pair. Its memory is fixed by the error
+ * bound and the number of counties, not by the number of rows.
+ *
+ * The count and fraction queries return estimates: a count is never too low and with
+ * probability 1 - delta at most getCountError() too high. Once the sketches fill up, a
+ * name that was never added gets an estimate above 0 too, so only an estimate above the
+ * error bound (see isFound()) shows that a name is in the year. A row that was already
+ * added is counted again, where the tree would ignore it. The year holds no Name objects,
+ * so iterating over it returns nothing and rows cannot be removed.
+ * @author Sarah Wardles
+ *
+ */
+public class ApproxYearNames extends YearNames {
+
+	//sketches keyed on the folded name and on the folded (name, county) pair
+	protected CountMinSketch names;
+	protected CountMinSketch pairs;
+	//number of babies in every folded county
+	protected HashMap<String, Integer> countyTotals = new HashMap<String, Integer>();
+
+	/**
+	 * This is the constructor for the ApproxYearNames object.
+	 * @param year (must be a positive integer that is between 1900 and 2018)
+	 * @param epsilon (error of a count as a share of the births of the year, between 0 and 1)
+	 * @param delta (probability that a count is off by more, between 0 and 1)
+	 * @throws IllegalArgumentException (thrown if the year or the error settings are invalid)
+	 */
+	public ApproxYearNames(int year, double epsilon, double delta) {
+		super(year);
+		names = new CountMinSketch(epsilon, delta);
+		pairs = new CountMinSketch(epsilon, delta);
+	}
+
+	/**
+	 * Method that counts a row in the totals and the sketches of this year.
+	 * @param name (Name object of the row)
+	 */
+	@Override
+	public void add(Name name) {
+		if (name == null) {
+			return;
+		}
+		String folded = Name.fold(name.getName());
+		String county = Name.fold(name.getCounty());
+		names.add(folded, name.getCount());
+		pairs.add(BloomFilter.pairKey(folded, county), name.getCount());
+		countyTotals.merge(county, name.getCount(), Integer::sum);
+		this.totalBirths += name.getCount();
+	}
+
+	/**
+	 * Rows cannot be removed because the year does not know which rows it holds.
+	 * @throws UnsupportedOperationException (always)
+	 */
+	@Override
+	public boolean remove(Name name) {
+		throw new UnsupportedOperationException("An approximate year cannot remove rows.");
+	}
+
+	/**
+	 * Method that estimates the number of babies with the specified name, both genders.
+	 * @param name (name to be queried)
+	 * @return estimated count, at least the true count
+	 */
+	@Override
+	public int getCountByName(String name) {
+		return names.estimate(Name.fold(name));
+	}
+
+	/**
+	 * Method that estimates the number of babies with the specified name in the specified
+	 * county, both genders.
+	 * @param name (the name to be found) and county (the county to be found)
+	 * @return estimated count, at least the true count
+	 */
+	@Override
+	public int getCountByNameCounty(String name, String county) {
+		return pairs.estimate(BloomFilter.pairKey(Name.fold(name), Name.fold(county)));
+	}
+
+	/**
+	 * Helper method to find the number of babies in a specified county. This count is exact.
+	 * @param county (county to find)
+	 * @return count (number of babies found)
+	 */
+	@Override
+	protected int allBabiesInCounty(String county) {
+		return countyTotals.getOrDefault(Name.fold(county), 0);
+	}
+
+	/**
+	 * Method that estimates the number of babies with the name of a key, both genders.
+	 * @param key (key of the query, its county is ignored)
+	 * @return estimated count, at least the true count
+	 */
+	@Override
+	public int getCountByName(NameKey key) {
+		return getCountByName(key.getName());
+	}
+
+	/**
+	 * Method that estimates the number of babies with the name of a key in its county.
+	 * @param key (key of the query, must have a county)
+	 * @return estimated count, at least the true count
+	 */
+	@Override
+	public int getCountByNameCounty(NameKey key) {
+		return getCountByNameCounty(key.getName(), key.getCounty());
+	}
+
+	/**
+	 * Helper method to find the number of babies in the county of a key. This count is exact.
+	 * @param key (key whose county to find)
+	 * @return count (number of babies found)
+	 */
+	@Override
+	protected int allBabiesInCounty(NameKey key) {
+		return allBabiesInCounty(key.getCounty());
+	}
+
+	/**
+	 * Method that returns how far an estimated count can be above the true count, with
+	 * probability 1 - delta.
+	 * @return the error bound of the counts
+	 */
+	public long getCountError() {
+		return names.errorBound();
+	}
+
+	/**
+	 * Method that returns how far getFractionByName() can be above the true fraction.
+	 * @return the error bound of the fraction
+	 */
+	public double getFractionError() {
+		return totalBirths == 0 ? 0 : (double) getCountError() / totalBirths;
+	}
+
+	/**
+	 * Method that returns how far getFractionByNameCounty() can be above the true fraction.
+	 * @param county (county of the fraction)
+	 * @return the error bound of the fraction
+	 */
+	public double getFractionErrorByCounty(String county) {
+		int babies = allBabiesInCounty(county);
+		return babies == 0 ? 0 : (double) pairs.errorBound() / babies;
+	}
+
+	/**
+	 * Method that checks whether the estimated count of a key is above the error bound of
+	 * its sketch. Then the key is in this year with probability 1 - delta; at or below the
+	 * bound the estimate cannot be told apart from the counts of other keys.
+	 * @param key (key of the query) and count (estimated count of the key in this year)
+	 * @return true if the count shows that the key is in this year
+	 */
+	public boolean isFound(NameKey key, int count) {
+		return count > (key.hasCounty() ? pairs.errorBound() : names.errorBound());
+	}
+
+	/**
+	 * Helper method that returns the number of bytes used by the sketches of this year.
+	 * @return bytes used by the sketches
+	 */
+	public long sketchBytes() {
+		return names.memoryBytes() + pairs.memoryBytes();
+	}
+}
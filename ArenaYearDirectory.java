@@ -0,0 +1,25 @@
+package project5;
+
+/**
+ * This class is a YearDirectory whose years are stored as ArenaYearNames objects. All
+ * of the years share one dictionary of names and one dictionary of counties, so every
+ * distinct string is only kept once for the whole dataset.
+ * @author Sarah Wardles
+ *
+ */
+public class ArenaYearDirectory extends YearDirectory {
+
+	//dictionaries shared by all the years
+	protected StringDictionary names = new StringDictionary();
+	protected StringDictionary counties = new StringDictionary();
+
+	/**
+	 * Helper method that creates an ArenaYearNames object for a new year.
+	 * @param year (year to create)
+	 * @return a new, empty ArenaYearNames object
+	 */
+	@Override
+	protected YearNames newYear(int year) {
+		return new ArenaYearNames(year, names, counties);
+	}
+}
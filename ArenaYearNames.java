@@ -0,0 +1,640 @@
+package project5;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * This class is a YearNames object whose AVL tree is stored in an arena of primitive
+ * arrays instead of one Node object per name. Every node is an int slot: the left and
+ * right children are slot numbers, and the name and county are ids in StringDictionary
+ * objects that are shared by all the years of a directory. A tree of n names therefore
+ * costs a handful of arrays instead of n node objects, n Name objects and their strings,
+ * which the garbage collector never has to mark one by one.
+ *
+ * The tree keeps the same ordering, duplicate and rotation rules as AVLTree, and answers
+ * the same queries as YearNames.
+ * @author Sarah Wardles
+ *
+ */
+public class ArenaYearNames extends YearNames {
+
+	//slot number used as a null reference
+	protected static final int NIL = -1;
+	//genders are stored as a code into this array
+	protected static final String[] GENDERS = {"F", "M", "f", "m"};
+
+	//dictionaries shared by all the years of a directory
+	protected StringDictionary names;
+	protected StringDictionary counties;
+
+	//the arena, one entry per slot
+	protected int[] left;
+	protected int[] right;
+	protected int[] height;
+	protected int[] nameIds;
+	protected int[] countyIds;
+	protected int[] counts;
+	protected byte[] genders;
+
+	//slot of the root of the tree
+	protected int rootSlot = NIL;
+	//number of slots that have ever been handed out
+	protected int used = 0;
+	//first slot of the list of removed slots, linked through left[]
+	protected int freeSlot = NIL;
+	//helper variables used by the remove methods
+	private boolean removed;
+	private int removedCount;
+
+	/**
+	 * This is the constructor for the ArenaYearNames object.
+	 * @param year (must be a positive integer that is between 1900 and 2018)
+	 * @param names (dictionary of names shared by the directory)
+	 * @param counties (dictionary of counties shared by the directory)
+	 * @throws IllegalArgumentException (thrown if the constructor is passed with an invalid year)
+	 */
+	public ArenaYearNames(int year, StringDictionary names, StringDictionary counties) {
+		super(year);
+		this.names = names;
+		this.counties = counties;
+		grow(16);
+	}
+
+	/**
+	 * Method that adds Name objects to the arena. If an equal Name object is already in
+	 * the tree, the tree does not change. Keeps track of the number of babies born in that year.
+	 * @param name (Name object to be added to the tree)
+	 */
+	@Override
+	public void add(Name name) {
+		if (name == null) {
+			return;
+		}
+		rootSlot = add(rootSlot, name);
+		this.totalBirths += name.getCount();
+		addToFilters(name);
+	}
+
+	/**
+	 * Actual recursive implementation of add.
+	 * @param node (slot to begin recursion from) and item (the new element to be added to the tree)
+	 * @return slot of the root of the subtree
+	 */
+	private int add(int node, Name item) {
+		if (node == NIL) {
+			numOfElements++;
+			return allocate(item);
+		}
+		int compare = compare(item.getName(), item.getCounty(), item.getGender(), node);
+		//the arrays can be replaced by grow() while recursing so assign after the call
+		if (compare < 0) {
+			int child = add(left[node], item);
+			left[node] = child;
+		} else if (compare > 0) {
+			int child = add(right[node], item);
+			right[node] = child;
+		} else { // no duplicates allowed
+			return node;
+		}
+		return rebalance(node);
+	}
+
+	/**
+	 * Remove the item from the tree. If item is null or not found in the tree, the tree
+	 * remains unchanged. The count of the item is ignored when it is searched for; the
+	 * count of the stored item is taken off the number of babies born in that year.
+	 * @param target the item to be removed from this tree
+	 * @return true if the item was removed, false otherwise
+	 */
+	@Override
+	public boolean remove(Name target) {
+		if (target == null) {
+			return false;
+		}
+		removed = false;
+		rootSlot = remove(rootSlot, target.getName(), target.getCounty(), target.getGender());
+		if (removed) {
+			numOfElements--;
+			this.totalBirths -= removedCount;
+		}
+		return removed;
+	}
+
+	/**
+	 * Actual recursive implementation of remove.
+	 * @param node (slot to begin recursion from) and name, county, gender (key of the item to remove)
+	 * @return slot of the root of the subtree
+	 */
+	private int remove(int node, String name, String county, String gender) {
+		if (node == NIL) {
+			return NIL;
+		}
+		int compare = compare(name, county, gender, node);
+		if (compare < 0) {
+			left[node] = remove(left[node], name, county, gender);
+		} else if (compare > 0) {
+			right[node] = remove(right[node], name, county, gender);
+		} else {
+			//the predecessor removed below is a copy, so only remember the first count
+			if (!removed) {
+				removedCount = counts[node];
+			}
+			removed = true;
+			if (left[node] == NIL || right[node] == NIL) {
+				int child = left[node] != NIL ? left[node] : right[node];
+				release(node);
+				return child;
+			}
+			//copy the predecessor into this slot and remove it from the left subtree
+			int predecessor = left[node];
+			while (right[predecessor] != NIL) {
+				predecessor = right[predecessor];
+			}
+			nameIds[node] = nameIds[predecessor];
+			countyIds[node] = countyIds[predecessor];
+			genders[node] = genders[predecessor];
+			counts[node] = counts[predecessor];
+			left[node] = remove(left[node], names.get(nameIds[node]), counties.get(countyIds[node]), GENDERS[genders[node]]);
+		}
+		return rebalance(node);
+	}
+
+	/**
+	 * Helper method that updates the height of a slot and performs the rotation that
+	 * restores the AVL property if the slot is unbalanced.
+	 * @param node (slot to rebalance)
+	 * @return slot of the new root of the subtree
+	 */
+	protected int rebalance(int node) {
+		height[node] = 1 + Math.max(getHeight(left[node]), getHeight(right[node]));
+		int balanceFactor = balanceFactor(node);
+		//LL and LR
+		if (balanceFactor >= 2) {
+			if (balanceFactor(left[node]) < 0) {
+				left[node] = leftRotate(left[node]);
+			}
+			return rightRotate(node);
+		}
+		//RR and RL
+		if (balanceFactor <= -2) {
+			if (balanceFactor(right[node]) > 0) {
+				right[node] = rightRotate(right[node]);
+			}
+			return leftRotate(node);
+		}
+		return node;
+	}
+
+	/**
+	* Helper method to perform a right rotation on a slot in the arena.
+	* @return the new slot
+	*/
+	protected int rightRotate(int current) {
+		int child = left[current];
+		int temp = right[child];
+
+		right[child] = current;
+		left[current] = temp;
+
+		// update the height of the nodes
+		height[current] = 1 + Math.max(getHeight(left[current]), getHeight(right[current]));
+		height[child] = 1 + Math.max(getHeight(left[child]), getHeight(right[child]));
+
+		return child;
+	}
+
+	/**
+	* Helper method to perform a left rotation on a slot in the arena.
+	* @return the new slot
+	*/
+	protected int leftRotate(int current) {
+		int child = right[current];
+		int temp = left[child];
+
+		left[child] = current;
+		right[current] = temp;
+
+		// update the height of the nodes
+		height[current] = 1 + Math.max(getHeight(left[current]), getHeight(right[current]));
+		height[child] = 1 + Math.max(getHeight(left[child]), getHeight(right[child]));
+
+		return child;
+	}
+
+	/**
+	* Helper method to return the height of a slot in the arena.
+	* @return the height or 0 for NIL
+	*/
+	protected int getHeight(int node) {
+		if (node == NIL) {
+			return 0;
+		}
+		return height[node];
+	}
+
+	/**
+	* Helper method to return the balance factor of a slot in the arena.
+	* @return the difference between the height of the two children of the slot
+	*/
+	protected int balanceFactor(int node) {
+		if (node == NIL) {
+			return 0;
+		}
+		return getHeight(left[node]) - getHeight(right[node]);
+	}
+
+	/**
+	 * Helper method that compares a key with the key stored in a slot, in the same order
+	 * as Name.compareTo (name, then county, then gender, ignoring case).
+	 * @return negative, 0 or positive
+	 */
+	protected int compare(String name, String county, String gender, int node) {
+		int compare = name.compareToIgnoreCase(names.get(nameIds[node]));
+		if (compare != 0) {
+			return compare;
+		}
+		compare = county.compareToIgnoreCase(counties.get(countyIds[node]));
+		if (compare != 0) {
+			return compare;
+		}
+		return gender.compareToIgnoreCase(GENDERS[genders[node]]);
+	}
+
+	/**
+	 * Helper method that hands out a slot for a new item, reusing removed slots first.
+	 * @param item (item to store)
+	 * @return the slot
+	 */
+	private int allocate(Name item) {
+		int slot;
+		if (freeSlot != NIL) {
+			slot = freeSlot;
+			freeSlot = left[slot];
+		} else {
+			if (used == left.length) {
+				grow(left.length * 2);
+			}
+			slot = used++;
+		}
+		left[slot] = NIL;
+		right[slot] = NIL;
+		height[slot] = 1;
+		nameIds[slot] = names.idOf(item.getName());
+		countyIds[slot] = counties.idOf(item.getCounty());
+		genders[slot] = genderCode(item.getGender());
+		counts[slot] = item.getCount();
+		return slot;
+	}
+
+	/**
+	 * Helper method that puts a removed slot on the free list.
+	 * @param slot (slot to release)
+	 */
+	private void release(int slot) {
+		height[slot] = 0;
+		left[slot] = freeSlot;
+		freeSlot = slot;
+	}
+
+	/**
+	 * Helper method that grows every array of the arena to a new capacity.
+	 * @param capacity (new number of slots)
+	 */
+	private void grow(int capacity) {
+		if (left == null) {
+			left = new int[capacity];
+			right = new int[capacity];
+			height = new int[capacity];
+			nameIds = new int[capacity];
+			countyIds = new int[capacity];
+			counts = new int[capacity];
+			genders = new byte[capacity];
+			return;
+		}
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		height = Arrays.copyOf(height, capacity);
+		nameIds = Arrays.copyOf(nameIds, capacity);
+		countyIds = Arrays.copyOf(countyIds, capacity);
+		counts = Arrays.copyOf(counts, capacity);
+		genders = Arrays.copyOf(genders, capacity);
+	}
+
+	/**
+	 * Helper method that maps a gender string to its code.
+	 * @param gender (gender of a Name object)
+	 * @return index into GENDERS
+	 */
+	private static byte genderCode(String gender) {
+		for (byte i = 0; i < GENDERS.length; i++) {
+			if (GENDERS[i].equals(gender)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("The program must take a valid gender as a parameter ");
+	}
+
+	/**
+	 * Helper method that creates a Name object from the contents of a slot.
+	 * @param slot (slot to read)
+	 * @return a new Name object
+	 */
+	protected Name nameAt(int slot) {
+		return new Name(names.get(nameIds[slot]), GENDERS[genders[slot]], counts[slot], counties.get(countyIds[slot]));
+	}
+
+	/**
+	 * Method that returns the number of babies with the specified name. Included babies
+	 * with the specified name from both genders (f/m).
+	 * @param name (name to be queried)
+	 * @return count (number of babies found with that name in year)
+	 */
+	@Override
+	public int getCountByName(String name) {
+		return getCountByName(name, rootSlot);
+	}
+
+	/**
+	* Actual recursive implementation of the getCountByName() method.
+	* @param name (name to find) and node (the slot to begin recursion from)
+	* @return count (number of babies found)
+	*/
+	protected int getCountByName(String name, int node) {
+		if (node == NIL) {
+			return 0;
+		}
+		int compare = name.compareToIgnoreCase(names.get(nameIds[node]));
+		if (compare < 0) {
+			return getCountByName(name, left[node]);
+		}
+		if (compare > 0) {
+			return getCountByName(name, right[node]);
+		}
+		return counts[node] + getCountByName(name, left[node]) + getCountByName(name, right[node]);
+	}
+
+	/**
+	* Method that returns the number of babies with name specified as an argument in the
+	* specified county as a parameter. Includes babies with both genders (f/m).
+	* @param name (the name to be found) and county (the county to be found)
+	* @return count (number of babies)
+	*/
+	@Override
+	public int getCountByNameCounty(String name, String county) {
+		return getCountByNameCounty(name, county, rootSlot);
+	}
+
+	/**
+	* Actual recursive implementation of the getCountByNameCounty method
+	* @param name (name to be found) and county (county to be found) and node (slot to start recursion from)
+	* @return count (number of babies found)
+	*/
+	protected int getCountByNameCounty(String name, String county, int node) {
+		if (node == NIL) {
+			return 0;
+		}
+		int compare = name.compareToIgnoreCase(names.get(nameIds[node]));
+		if (compare == 0) {
+			compare = county.compareToIgnoreCase(counties.get(countyIds[node]));
+		}
+		if (compare < 0) {
+			return getCountByNameCounty(name, county, left[node]);
+		}
+		if (compare > 0) {
+			return getCountByNameCounty(name, county, right[node]);
+		}
+		return counts[node] + getCountByNameCounty(name, county, left[node]) + getCountByNameCounty(name, county, right[node]);
+	}
+
+	/**
+	* Helper method to find the number of babies in a specified county. The county is
+	* matched against the dictionary once, so the walk over the arena only compares ids.
+	* @param county (county to find)
+	* @return count (number of babies found)
+	*/
+	@Override
+	protected int allBabiesInCounty(String county) {
+		boolean[] matches = new boolean[counties.size()];
+		boolean any = false;
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = counties.get(i).equalsIgnoreCase(county);
+			any |= matches[i];
+		}
+		if (!any) {
+			return 0;
+		}
+		int count = 0;
+		for (int slot = 0; slot < used; slot++) {
+			if (isLive(slot) && countyIds[slot] < matches.length && matches[countyIds[slot]]) {
+				count += counts[slot];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Method that returns the number of babies with the name of a key, both genders,
+	 * walking the arena with the folded key.
+	 * @param key (key of the query, its county is ignored)
+	 * @return count (number of babies found with that name in year)
+	 */
+	@Override
+	public int getCountByName(NameKey key) {
+		if (nameFilter != null && !nameFilter.mightContainHash(key.nameHash)) {
+			return 0;
+		}
+		return getCountByName(key, rootSlot);
+	}
+
+	/**
+	* Actual recursive implementation of getCountByName(NameKey).
+	* @param key (key to find) and node (the slot to begin recursion from)
+	* @return count (number of babies found)
+	*/
+	protected int getCountByName(NameKey key, int node) {
+		if (node == NIL) {
+			return 0;
+		}
+		int compare = key.compareName(names.get(nameIds[node]));
+		if (compare < 0) {
+			return getCountByName(key, left[node]);
+		}
+		if (compare > 0) {
+			return getCountByName(key, right[node]);
+		}
+		return counts[node] + getCountByName(key, left[node]) + getCountByName(key, right[node]);
+	}
+
+	/**
+	* Method that returns the number of babies with the name of a key in its county, both
+	* genders, walking the arena with the folded key.
+	* @param key (key of the query, must have a county)
+	* @return count (number of babies)
+	*/
+	@Override
+	public int getCountByNameCounty(NameKey key) {
+		if (!mightContain(key)) {
+			return 0;
+		}
+		return getCountByNameCounty(key, rootSlot);
+	}
+
+	/**
+	* Actual recursive implementation of getCountByNameCounty(NameKey).
+	* @param key (key to find) and node (slot to start recursion from)
+	* @return count (number of babies found)
+	*/
+	protected int getCountByNameCounty(NameKey key, int node) {
+		if (node == NIL) {
+			return 0;
+		}
+		int compare = key.compareName(names.get(nameIds[node]));
+		if (compare == 0) {
+			compare = key.compareCounty(counties.get(countyIds[node]));
+		}
+		if (compare < 0) {
+			return getCountByNameCounty(key, left[node]);
+		}
+		if (compare > 0) {
+			return getCountByNameCounty(key, right[node]);
+		}
+		return counts[node] + getCountByNameCounty(key, left[node]) + getCountByNameCounty(key, right[node]);
+	}
+
+	/**
+	* Helper method to find the number of babies in the county of a key. Usually only one
+	* spelling of the county is in the dictionary, and then the walk over the arena only
+	* compares ids; otherwise every county is compared with the folded key.
+	* @param key (key whose county to find)
+	* @return count (number of babies found)
+	*/
+	@Override
+	protected int allBabiesInCounty(NameKey key) {
+		int match = NIL;
+		int spellings = 0;
+		for (int i = 0; i < counties.size(); i++) {
+			if (key.compareCounty(counties.get(i)) == 0) {
+				match = i;
+				spellings++;
+			}
+		}
+		if (spellings == 0) {
+			return 0;
+		}
+		int count = 0;
+		for (int slot = 0; slot < used; slot++) {
+			if (isLive(slot) && (spellings == 1 ? countyIds[slot] == match
+					: key.compareCounty(counties.get(countyIds[slot])) == 0)) {
+				count += counts[slot];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Helper method that checks whether a slot holds an item of the tree. Removed slots
+	 * are marked with a height of 0.
+	 * @param slot (slot to check)
+	 * @return true if the slot is in use
+	 */
+	private boolean isLive(int slot) {
+		return height[slot] > 0;
+	}
+
+	/**
+	 * Returns an iterator over the Name objects of this year in tree order. The Name
+	 * objects are created from the arena as the iterator reaches them.
+	 * @return iterator over the names of this year
+	 */
+	@Override
+	public Iterator<Name> iterator() {
+		return new Iterator<Name>() {
+			//the path of slots still to visit is never deeper than the tree
+			private int[] stack = new int[Math.max(1, getHeight(rootSlot))];
+			private int depth = 0;
+			{
+				pushLeft(rootSlot);
+			}
+
+			private void pushLeft(int node) {
+				while (node != NIL) {
+					stack[depth++] = node;
+					node = left[node];
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return depth > 0;
+			}
+
+			@Override
+			public Name next() {
+				if (depth == 0) {
+					throw new NoSuchElementException();
+				}
+				int node = stack[--depth];
+				pushLeft(right[node]);
+				return nameAt(node);
+			}
+		};
+	}
+
+	/**
+	 * Returns a spliterator over the Name objects of this year in tree order. It splits
+	 * by handing out batches of names taken from the iterator.
+	 * @return spliterator over the names of this year
+	 */
+	@Override
+	public Spliterator<Name> spliterator() {
+		return Spliterators.spliterator(iterator(), numOfElements,
+				Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	/**
+	 * Passes every name of this year between two bounds to an action, in tree order, with
+	 * the same pruning as AVLTree.scan(). A Name object is created for every slot visited,
+	 * because the bounds compare with Name objects.
+	 * @param low (lower bound or null) and high (upper bound or null) and action (action for every name in the range)
+	 * @return number of slots visited
+	 */
+	@Override
+	public int scan(Comparable<? super Name> low, Comparable<? super Name> high, Consumer<? super Name> action) {
+		return scan(rootSlot, low, high, action);
+	}
+
+	/**
+	 * Actual recursive implementation of the scan() method.
+	 */
+	private int scan(int node, Comparable<? super Name> low, Comparable<? super Name> high, Consumer<? super Name> action) {
+		if (node == NIL) {
+			return 0;
+		}
+		Name data = nameAt(node);
+		boolean aboveLow = low == null || low.compareTo(data) <= 0;
+		boolean belowHigh = high == null || high.compareTo(data) >= 0;
+		int visited = 1;
+		if (aboveLow) {
+			visited += scan(left[node], low, high, action);
+		}
+		if (aboveLow && belowHigh) {
+			action.accept(data);
+		}
+		if (belowHigh) {
+			visited += scan(right[node], low, high, action);
+		}
+		return visited;
+	}
+
+	/**
+	 * Helper method that returns the number of bytes used by the arrays of the arena.
+	 * @return bytes used by the arena
+	 */
+	public long arenaBytes() {
+		return (long) left.length * (6 * Integer.BYTES + 1);
+	}
+}
@@ -0,0 +1,553 @@
+package project5;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class is a B+tree: a search tree with wide nodes. Every node holds up to order
+ * keys side by side in one array, so a lookup touches a handful of nodes instead of one
+ * node per level of a binary tree. The elements are kept in the leaves, which are linked
+ * from left to right, so walking the elements in order (and scanning a range) reads the
+ * leaves one after the other. The inner nodes only hold separator keys: every element
+ * of children[i] is below keys[i], and every element of children[i + 1] is at least keys[i].
+ *
+ * The tree has the contract of AVLTree: duplicates are not stored, remove() of an element
+ * that is not in the tree leaves it unchanged, and elements are returned in order.
+ * @author Sarah Wardles
+ *
+ * @param <E> a reference type that implements Comparable<E> interface
+ */
+public class BPlusTree<E extends Comparable<E>> implements Iterable<E> {
+
+	//default number of keys per node
+	public static final int DEFAULT_ORDER = 64;
+
+	/**
+	 * A node of the tree. A leaf holds elements and the next leaf; an inner node holds
+	 * separator keys and size + 1 children.
+	 *
+	 * @param <E> a reference type that implements Comparable<E> interface
+	 */
+	protected static class Node<E> {
+
+		protected Object[] keys;        // elements or separators, size of them in use
+		protected int size;
+		protected Node<E>[] children;   // null in a leaf
+		protected Node<E> next;         // next leaf, null in an inner node
+
+		@SuppressWarnings("unchecked")
+		protected Node(int order, boolean leaf) {
+			keys = new Object[order + 1];
+			if (!leaf) {
+				children = (Node<E>[]) new Node<?>[order + 2];
+			}
+		}
+
+		protected boolean isLeaf() {
+			return children == null;
+		}
+
+		@SuppressWarnings("unchecked")
+		protected E key(int i) {
+			return (E) keys[i];
+		}
+	}
+
+	//maximum and minimum number of keys of a node other than the root
+	protected int order;
+	protected int minKeys;
+	protected Node<E> root;
+	protected int numOfElements = 0;
+	//results of a split while adding: the separator and the new right node
+	private E splitKey;
+	private Node<E> splitNode;
+	//set by the remove methods when the element was found
+	private boolean removed;
+
+	/**
+	 * Constructs an empty tree with the default order.
+	 */
+	public BPlusTree() {
+		this(DEFAULT_ORDER);
+	}
+
+	/**
+	 * Constructs an empty tree.
+	 * @param order the number of keys per node, at least 4
+	 * @throws IllegalArgumentException if the order is below 4
+	 */
+	public BPlusTree(int order) {
+		if (order < 4) {
+			throw new IllegalArgumentException("The order of a B+tree must be at least 4.");
+		}
+		this.order = order;
+		this.minKeys = order / 2;
+		this.root = new Node<E>(order, true);
+	}
+
+	/**
+	 * Add the item to this tree. If an equal item is already in the tree, the tree does
+	 * not change.
+	 *
+	 * @param item the item to be added, null is ignored
+	 */
+	public void add(E item) {
+		if (item == null) {
+			return;
+		}
+		if (add(root, item)) {
+			Node<E> newRoot = new Node<E>(order, false);
+			newRoot.keys[0] = splitKey;
+			newRoot.children[0] = root;
+			newRoot.children[1] = splitNode;
+			newRoot.size = 1;
+			root = newRoot;
+		}
+	}
+
+	/**
+	 * Actual recursive implementation of add.
+	 * @return true if the node was split, with the split in splitKey and splitNode
+	 */
+	private boolean add(Node<E> node, E item) {
+		if (node.isLeaf()) {
+			int position = search(node, item);
+			if (position >= 0) {
+				return false; // no duplicates allowed
+			}
+			insert(node.keys, node.size, -position - 1, item);
+			node.size++;
+			numOfElements++;
+			if (node.size <= order) {
+				return false;
+			}
+			Node<E> right = new Node<E>(order, true);
+			int half = node.size / 2;
+			right.size = node.size - half;
+			System.arraycopy(node.keys, half, right.keys, 0, right.size);
+			clear(node.keys, half, node.size);
+			node.size = half;
+			right.next = node.next;
+			node.next = right;
+			splitKey = right.key(0);
+			splitNode = right;
+			return true;
+		}
+
+		int child = childIndex(node, item);
+		if (!add(node.children[child], item)) {
+			return false;
+		}
+		insert(node.keys, node.size, child, splitKey);
+		insert(node.children, node.size + 1, child + 1, splitNode);
+		node.size++;
+		if (node.size <= order) {
+			return false;
+		}
+		//the middle key moves up, the keys to its right go to the new node
+		Node<E> right = new Node<E>(order, false);
+		int middle = node.size / 2;
+		E up = node.key(middle);
+		right.size = node.size - middle - 1;
+		System.arraycopy(node.keys, middle + 1, right.keys, 0, right.size);
+		System.arraycopy(node.children, middle + 1, right.children, 0, right.size + 1);
+		clear(node.keys, middle, node.size);
+		clear(node.children, middle + 1, node.size + 1);
+		node.size = middle;
+		splitKey = up;
+		splitNode = right;
+		return true;
+	}
+
+	/**
+	 * Remove the item from the tree. If item is null or not found in the tree, the tree
+	 * remains unchanged.
+	 *
+	 * @param target the item to be removed from this tree
+	 * @return true if the item was removed, false otherwise
+	 */
+	public boolean remove(E target) {
+		if (target == null) {
+			return false;
+		}
+		removed = false;
+		remove(root, target);
+		if (!root.isLeaf() && root.size == 0) {
+			root = root.children[0];
+		}
+		return removed;
+	}
+
+	/**
+	 * Actual recursive implementation of remove. Nodes that drop below minKeys are
+	 * refilled by their parent.
+	 */
+	private void remove(Node<E> node, E target) {
+		if (node.isLeaf()) {
+			int position = search(node, target);
+			if (position >= 0) {
+				delete(node.keys, node.size, position);
+				node.size--;
+				numOfElements--;
+				removed = true;
+			}
+			return;
+		}
+		int child = childIndex(node, target);
+		remove(node.children[child], target);
+		if (removed && node.children[child].size < minKeys) {
+			refill(node, child);
+		}
+	}
+
+	/**
+	 * Helper method that refills a child that has too few keys, by borrowing a key from
+	 * a sibling that can spare one or else by merging it with a sibling.
+	 */
+	private void refill(Node<E> parent, int child) {
+		Node<E> node = parent.children[child];
+		Node<E> left = child > 0 ? parent.children[child - 1] : null;
+		Node<E> right = child < parent.size ? parent.children[child + 1] : null;
+		if (left != null && left.size > minKeys) {
+			if (node.isLeaf()) {
+				insert(node.keys, node.size, 0, left.keys[left.size - 1]);
+				parent.keys[child - 1] = node.keys[0];
+			} else {
+				insert(node.keys, node.size, 0, parent.keys[child - 1]);
+				insert(node.children, node.size + 1, 0, left.children[left.size]);
+				parent.keys[child - 1] = left.keys[left.size - 1];
+				left.children[left.size] = null;
+			}
+			left.keys[left.size - 1] = null;
+			left.size--;
+			node.size++;
+		} else if (right != null && right.size > minKeys) {
+			if (node.isLeaf()) {
+				node.keys[node.size] = right.keys[0];
+				delete(right.keys, right.size, 0);
+				parent.keys[child] = right.keys[0];
+			} else {
+				node.keys[node.size] = parent.keys[child];
+				node.children[node.size + 1] = right.children[0];
+				parent.keys[child] = right.keys[0];
+				delete(right.keys, right.size, 0);
+				delete(right.children, right.size + 1, 0);
+			}
+			right.size--;
+			node.size++;
+		} else if (left != null) {
+			merge(parent, child - 1);
+		} else {
+			merge(parent, child);
+		}
+	}
+
+	/**
+	 * Helper method that merges children[index + 1] of a node into children[index].
+	 */
+	private void merge(Node<E> parent, int index) {
+		Node<E> left = parent.children[index];
+		Node<E> right = parent.children[index + 1];
+		if (left.isLeaf()) {
+			System.arraycopy(right.keys, 0, left.keys, left.size, right.size);
+			left.size += right.size;
+			left.next = right.next;
+		} else {
+			left.keys[left.size] = parent.keys[index];
+			System.arraycopy(right.keys, 0, left.keys, left.size + 1, right.size);
+			System.arraycopy(right.children, 0, left.children, left.size + 1, right.size + 1);
+			left.size += right.size + 1;
+		}
+		delete(parent.keys, parent.size, index);
+		delete(parent.children, parent.size + 1, index + 1);
+		parent.size--;
+	}
+
+	/**
+	 * Returns the element of the tree that is equal to the given item. If item is null
+	 * or not found in the tree, null is returned.
+	 *
+	 * @param item the item to search for
+	 * @return the element stored in the tree or null
+	 */
+	public E get(E item) {
+		if (item == null) {
+			return null;
+		}
+		Node<E> node = root;
+		while (!node.isLeaf()) {
+			node = node.children[childIndex(node, item)];
+		}
+		int position = search(node, item);
+		return position >= 0 ? node.key(position) : null;
+	}
+
+	/**
+	 * Passes every element of the tree between two bounds to an action, in order, with
+	 * the bounds of AVLTree.scan(). The tree is descended once to the first leaf that can
+	 * hold an element of the range, then the leaves are read one after the other.
+	 *
+	 * @param low the lower bound or null
+	 * @param high the upper bound or null
+	 * @param action the action to perform on every element in the range
+	 * @return number of nodes visited
+	 */
+	public int scan(Comparable<? super E> low, Comparable<? super E> high, Consumer<? super E> action) {
+		int visited = 1;
+		Node<E> node = root;
+		while (!node.isLeaf()) {
+			int child = 0;
+			while (low != null && child < node.size && low.compareTo(node.key(child)) > 0) {
+				child++;
+			}
+			node = node.children[child];
+			visited++;
+		}
+		int position = 0;
+		while (low != null && position < node.size && low.compareTo(node.key(position)) > 0) {
+			position++;
+		}
+		while (node != null) {
+			for (; position < node.size; position++) {
+				E element = node.key(position);
+				if (high != null && high.compareTo(element) < 0) {
+					return visited;
+				}
+				action.accept(element);
+			}
+			node = node.next;
+			position = 0;
+			if (node != null) {
+				visited++;
+			}
+		}
+		return visited;
+	}
+
+	/**
+	 * Adds up a value over the elements of a range without allocating. The range is given
+	 * by a key and a comparison of the key with an element, which returns 0 for the
+	 * elements in the range, a negative number for the elements after it and a positive
+	 * number for the elements before it. The tree is descended once, by binary search in
+	 * every node, to the first leaf that can hold an element of the range, then the leaves
+	 * are read until the range ends.
+	 *
+	 * @param key the key of the range
+	 * @param compare the comparison of the key with an element
+	 * @param value the value of an element
+	 * @return the sum of the values of the elements in the range
+	 */
+	public <K> int sum(K key, ToIntBiFunction<? super K, ? super E> compare, ToIntFunction<? super E> value) {
+		Node<E> node = root;
+		while (!node.isLeaf()) {
+			node = node.children[first(node, key, compare)];
+		}
+		int sum = 0;
+		for (int position = first(node, key, compare); node != null; node = node.next, position = 0) {
+			for (; position < node.size; position++) {
+				E element = node.key(position);
+				if (compare.applyAsInt(key, element) < 0) {
+					return sum;
+				}
+				sum += value.applyAsInt(element);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Adds up a value over the elements that match a key, without allocating. The matching
+	 * elements can be anywhere in the tree, so every leaf is read in order.
+	 *
+	 * @param key the key to match
+	 * @param match the test of an element against the key
+	 * @param value the value of an element
+	 * @return the sum of the values of the matching elements
+	 */
+	public <K> int sumWhere(K key, BiPredicate<? super K, ? super E> match, ToIntFunction<? super E> value) {
+		Node<E> leaf = root;
+		while (!leaf.isLeaf()) {
+			leaf = leaf.children[0];
+		}
+		int sum = 0;
+		for (; leaf != null; leaf = leaf.next) {
+			for (int position = 0; position < leaf.size; position++) {
+				E element = leaf.key(position);
+				if (match.test(key, element)) {
+					sum += value.applyAsInt(element);
+				}
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Determines the number of elements stored in this tree.
+	 *
+	 * @return number of elements in this tree
+	 */
+	public int size() {
+		return numOfElements;
+	}
+
+	/**
+	 * Determines the number of levels of this tree.
+	 *
+	 * @return number of levels, 1 for a tree that is a single leaf
+	 */
+	public int height() {
+		int height = 1;
+		for (Node<E> node = root; !node.isLeaf(); node = node.children[0]) {
+			height++;
+		}
+		return height;
+	}
+
+	/**
+	 * Returns an iterator over the elements of this tree in order, which follows the
+	 * links between the leaves. The tree must not be changed while it is iterated over.
+	 *
+	 * @return iterator over the elements of this tree
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		Node<E> first = root;
+		while (!first.isLeaf()) {
+			first = first.children[0];
+		}
+		final Node<E> start = first;
+		return new Iterator<E>() {
+			private Node<E> leaf = start;
+			private int position = 0;
+
+			@Override
+			public boolean hasNext() {
+				while (leaf != null && position >= leaf.size) {
+					leaf = leaf.next;
+					position = 0;
+				}
+				return leaf != null;
+			}
+
+			@Override
+			public E next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return leaf.key(position++);
+			}
+		};
+	}
+
+	/**
+	 * Returns a spliterator over the elements of this tree in order.
+	 *
+	 * @return spliterator over the elements of this tree
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return Spliterators.spliterator(iterator(), numOfElements,
+				Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	/**
+	 * Returns a sequential stream over the elements of this tree in order.
+	 *
+	 * @return stream over the elements of this tree
+	 */
+	public Stream<E> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * Helper method that finds an element in a leaf by binary search.
+	 * @return the position of the element, or -(insertion point) - 1 if it is not in the leaf
+	 */
+	private int search(Node<E> leaf, E item) {
+		int low = 0;
+		int high = leaf.size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int compare = item.compareTo(leaf.key(middle));
+			if (compare == 0) {
+				return middle;
+			}
+			if (compare < 0) {
+				high = middle - 1;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return -low - 1;
+	}
+
+	/**
+	 * Helper method that returns the child of an inner node whose range holds an item:
+	 * the number of separators that are not above the item.
+	 */
+	private int childIndex(Node<E> node, E item) {
+		int low = 0;
+		int high = node.size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (item.compareTo(node.key(middle)) >= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Helper method that returns the first position of a node whose key is not before the
+	 * range of sum(): in an inner node the child to descend into, in a leaf the first
+	 * element to read.
+	 */
+	private static <K, E> int first(Node<E> node, K key, ToIntBiFunction<? super K, ? super E> compare) {
+		int low = 0;
+		int high = node.size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (compare.applyAsInt(key, node.key(middle)) > 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Helper method that inserts a value at a position of an array with size values in use.
+	 */
+	private static void insert(Object[] array, int size, int position, Object value) {
+		System.arraycopy(array, position, array, position + 1, size - position);
+		array[position] = value;
+	}
+
+	/**
+	 * Helper method that deletes the value at a position of an array with size values in use.
+	 */
+	private static void delete(Object[] array, int size, int position) {
+		System.arraycopy(array, position + 1, array, position, size - position - 1);
+		array[size - 1] = null;
+	}
+
+	/**
+	 * Helper method that clears a part of an array so it does not keep old values alive.
+	 */
+	private static void clear(Object[] array, int from, int to) {
+		for (int i = from; i < to; i++) {
+			array[i] = null;
+		}
+	}
+}
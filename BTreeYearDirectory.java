@@ -0,0 +1,41 @@
+package project5;
+
+/**
+ * This class is a YearDirectory whose years are stored as BTreeYearNames objects.
+ * @author Sarah Wardles
+ *
+ */
+public class BTreeYearDirectory extends YearDirectory {
+
+	//number of keys per node of every tree
+	protected int order;
+
+	/**
+	 * This is the constructor for the BTreeYearDirectory object with the default order.
+	 */
+	public BTreeYearDirectory() {
+		this(BPlusTree.DEFAULT_ORDER);
+	}
+
+	/**
+	 * This is the constructor for the BTreeYearDirectory object.
+	 * @param order (number of keys per node of every tree, at least 4)
+	 * @throws IllegalArgumentException (thrown if the order is below 4)
+	 */
+	public BTreeYearDirectory(int order) {
+		if (order < 4) {
+			throw new IllegalArgumentException("The order of a B+tree must be at least 4.");
+		}
+		this.order = order;
+	}
+
+	/**
+	 * Helper method that creates a BTreeYearNames object for a new year.
+	 * @param year (year to create)
+	 * @return a new, empty BTreeYearNames object
+	 */
+	@Override
+	protected YearNames newYear(int year) {
+		return new BTreeYearNames(year, order);
+	}
+}
@@ -0,0 +1,217 @@
+package project5;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class is a YearNames object whose names are stored in a BPlusTree instead of the
+ * binary AVL tree. The tree is ordered like AVLTree (name, then county, then gender,
+ * ignoring case), so every query is a range of it: the names with one spelling, or with
+ * one spelling in one county, sit next to each other in the linked leaves and are read
+ * with one descent and a sequential scan.
+ * @author Sarah Wardles
+ *
+ */
+public class BTreeYearNames extends YearNames {
+
+	//comparisons of a key with a stored name for the key queries: by name, by name and
+	//county, and whether the name is in the county of the key
+	private static final ToIntBiFunction<NameKey, Name> BY_NAME = (key, name) -> key.compareName(name.getName());
+	private static final ToIntBiFunction<NameKey, Name> BY_NAME_COUNTY = (key, name) -> {
+		int compare = key.compareName(name.getName());
+		return compare != 0 ? compare : key.compareCounty(name.getCounty());
+	};
+	private static final BiPredicate<NameKey, Name> IN_COUNTY = (key, name) -> key.compareCounty(name.getCounty()) == 0;
+	private static final ToIntFunction<Name> COUNT = Name::getCount;
+
+	//the tree that holds the names of this year
+	protected BPlusTree<Name> tree;
+
+	/**
+	 * This is the constructor for the BTreeYearNames object.
+	 * @param year (must be a positive integer that is between 1900 and 2018)
+	 * @param order (number of keys per node of the tree)
+	 * @throws IllegalArgumentException (thrown if the constructor is passed with an invalid year or order)
+	 */
+	public BTreeYearNames(int year, int order) {
+		super(year);
+		this.tree = new BPlusTree<Name>(order);
+	}
+
+	/**
+	 * Method that adds Name objects to the tree. If an equal Name object is already in
+	 * the tree, the tree does not change. Keeps track of the number of babies born in that year.
+	 * @param name (Name object to be added to the tree)
+	 */
+	@Override
+	public void add(Name name) {
+		if (name == null) {
+			return;
+		}
+		tree.add(name);
+		numOfElements = tree.size();
+		this.totalBirths += name.getCount();
+		addToFilters(name);
+	}
+
+	/**
+	 * Method that removes a Name object from this year. The count of the parameter is
+	 * ignored; the count of the stored Name object is taken off the number of babies born
+	 * in that year.
+	 * @param name (Name object to be removed)
+	 * @return true if the name was removed, false if it was not found
+	 */
+	@Override
+	public boolean remove(Name name) {
+		Name stored = tree.get(name);
+		if (stored == null) {
+			return false;
+		}
+		tree.remove(stored);
+		numOfElements = tree.size();
+		this.totalBirths -= stored.getCount();
+		return true;
+	}
+
+	/**
+	 * Returns the Name object of this year that is equal to the given one.
+	 * @param item (Name object to search for)
+	 * @return the stored Name object or null
+	 */
+	@Override
+	public Name get(Name item) {
+		return tree.get(item);
+	}
+
+	/**
+	 * Method that returns the number of babies with the specified name. Included babies
+	 * with the specified name from both genders (f/m).
+	 * @param name (name to be queried)
+	 * @return count (number of babies found with that name in year)
+	 */
+	@Override
+	public int getCountByName(String name) {
+		if (!mightContain(name)) {
+			return 0;
+		}
+		int[] count = new int[1];
+		tree.scan(new QueryPlan.NameBound(name, false, null, null, QueryPlan.NameBound.LOW),
+				new QueryPlan.NameBound(name, false, null, null, QueryPlan.NameBound.HIGH), n -> count[0] += n.getCount());
+		return count[0];
+	}
+
+	/**
+	* Method that returns the number of babies with name specified as an argument in the
+	* specified county as a parameter. Includes babies with both genders (f/m).
+	* @param name (the name to be found) and county (the county to be found)
+	* @return count (number of babies)
+	*/
+	@Override
+	public int getCountByNameCounty(String name, String county) {
+		if (!mightContain(name, county)) {
+			return 0;
+		}
+		int[] count = new int[1];
+		tree.scan(new QueryPlan.NameBound(name, false, county, null, QueryPlan.NameBound.LOW),
+				new QueryPlan.NameBound(name, false, county, null, QueryPlan.NameBound.HIGH), n -> count[0] += n.getCount());
+		return count[0];
+	}
+
+	/**
+	* Helper method to find the number of babies in a specified county. The county is
+	* spread over the whole tree, so this reads every leaf in order.
+	* @param county (county to find)
+	* @return count (number of babies found)
+	*/
+	@Override
+	protected int allBabiesInCounty(String county) {
+		int count = 0;
+		for (Name name : tree) {
+			if (name.getCounty().equalsIgnoreCase(county)) {
+				count += name.getCount();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Method that returns the number of babies with the name of a key, both genders. The
+	 * tree is descended with the folded characters of the key and its range read along the
+	 * leaves, without allocating.
+	 * @param key (key of the query, its county is ignored)
+	 * @return count (number of babies found with that name in year)
+	 */
+	@Override
+	public int getCountByName(NameKey key) {
+		if (nameFilter != null && !nameFilter.mightContainHash(key.nameHash)) {
+			return 0;
+		}
+		return tree.sum(key, BY_NAME, COUNT);
+	}
+
+	/**
+	* Method that returns the number of babies with the name of a key in its county, both
+	* genders. Like getCountByName(NameKey), without allocating.
+	* @param key (key of the query, must have a county)
+	* @return count (number of babies)
+	*/
+	@Override
+	public int getCountByNameCounty(NameKey key) {
+		if (!mightContain(key)) {
+			return 0;
+		}
+		return tree.sum(key, BY_NAME_COUNTY, COUNT);
+	}
+
+	/**
+	* Helper method to find the number of babies in the county of a key. The county is
+	* spread over the whole tree, so this reads every leaf in order, without allocating.
+	* @param key (key whose county to find)
+	* @return count (number of babies found)
+	*/
+	@Override
+	protected int allBabiesInCounty(NameKey key) {
+		return tree.sumWhere(key, IN_COUNTY, COUNT);
+	}
+
+	/**
+	 * Returns an iterator over the Name objects of this year in order, along the leaves.
+	 * @return iterator over the names of this year
+	 */
+	@Override
+	public Iterator<Name> iterator() {
+		return tree.iterator();
+	}
+
+	/**
+	 * Returns a spliterator over the Name objects of this year in order.
+	 * @return spliterator over the names of this year
+	 */
+	@Override
+	public Spliterator<Name> spliterator() {
+		return tree.spliterator();
+	}
+
+	/**
+	 * Passes every name of this year between two bounds to an action, in order, with the
+	 * bounds of AVLTree.scan().
+	 * @param low (lower bound or null) and high (upper bound or null) and action (action for every name in the range)
+	 * @return number of nodes visited
+	 */
+	@Override
+	public int scan(Comparable<? super Name> low, Comparable<? super Name> high, Consumer<? super Name> action) {
+		return tree.scan(low, high, action);
+	}
+
+	/**
+	 * Method that returns the number of levels of the tree of this year.
+	 * @return number of levels
+	 */
+	public int height() {
+		return tree.height();
+	}
+}
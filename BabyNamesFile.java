@@ -0,0 +1,464 @@
+package project5;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class reads and writes the compact on-disk format of the dataset. Every year is
+ * stored as its own block that can be decoded without reading any other block:
+ *
+ *   header:  int magic, byte version
+ *   blocks:  one block per year (see writeBlock)
+ *   footer:  int number of years, then for every year
+ *            int year, long offset, int length, int rows, int totalBirths
+ *   trailer: long footer offset, int magic
+ *
+ * Inside a block the names and counties are dictionary encoded and the rows are stored
+ * column by column in the in-order of the tree. Name ids and counts are delta encoded
+ * and all integers are written as variable length integers, so a year costs a few bytes
+ * per row instead of the full CSV line.
+ * @author Sarah Wardles
+ *
+ */
+public class BabyNamesFile implements Closeable {
+
+	//"NYBN" in ascii
+	protected static final int MAGIC = 0x4E59424E;
+	protected static final byte VERSION = 1;
+	//size of the trailer at the very end of the file
+	private static final int TRAILER_SIZE = 12;
+	//genders are packed four to a byte with two bits each
+	private static final String[] GENDERS = {"F", "M", "f", "m"};
+
+	//the open file
+	private RandomAccessFile in;
+	//footer index, one entry per year in file order
+	private int[] years;
+	private long[] offsets;
+	private int[] lengths;
+	private int[] rows;
+	private int[] totals;
+
+	/**
+	 * This is the constructor for the BabyNamesFile object. It opens the file and reads
+	 * only the footer index; no year is decoded until readYear() is called.
+	 * @param file (file written by write())
+	 * @throws IOException (thrown if the file cannot be read or is not in the compact format)
+	 */
+	public BabyNamesFile(File file) throws IOException {
+		in = new RandomAccessFile(file, "r");
+		try {
+			if (in.length() < 5 + TRAILER_SIZE || in.readInt() != MAGIC) {
+				throw new IOException("The file " + file + " is not a compact baby names file.");
+			}
+			if (in.readByte() != VERSION) {
+				throw new IOException("The file " + file + " has an unsupported version.");
+			}
+			in.seek(in.length() - TRAILER_SIZE);
+			long footer = in.readLong();
+			if (in.readInt() != MAGIC) {
+				throw new IOException("The file " + file + " is truncated.");
+			}
+
+			in.seek(footer);
+			int size = in.readInt();
+			years = new int[size];
+			offsets = new long[size];
+			lengths = new int[size];
+			rows = new int[size];
+			totals = new int[size];
+			for (int i = 0; i < size; i++) {
+				years[i] = in.readInt();
+				offsets[i] = in.readLong();
+				lengths[i] = in.readInt();
+				rows[i] = in.readInt();
+				totals[i] = in.readInt();
+			}
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Helper method that checks if a file starts with the magic number of the compact format.
+	 * @param file (file to check)
+	 * @return true if the file is in the compact format, false otherwise
+	 */
+	public static boolean isCompactFile(File file) {
+		try (RandomAccessFile check = new RandomAccessFile(file, "r")) {
+			return check.length() >= 4 && check.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Method that returns all of the years stored in the file in file order.
+	 * @return array of years
+	 */
+	public int[] getYears() {
+		return years.clone();
+	}
+
+	/**
+	 * Method that returns the total number of births of a year without decoding its block.
+	 * @param year (year to find)
+	 * @return total births or 0 if the year is not in the file
+	 */
+	public int getTotalBirths(int year) {
+		int i = indexOf(year);
+		return i < 0 ? 0 : totals[i];
+	}
+
+	/**
+	 * Method that returns the number of rows of a year without decoding its block.
+	 * @param year (year to find)
+	 * @return number of rows or 0 if the year is not in the file
+	 */
+	public int getRows(int year) {
+		int i = indexOf(year);
+		return i < 0 ? 0 : rows[i];
+	}
+
+	/**
+	 * Method that reads and decodes the block of a single year.
+	 * @param year (year to read)
+	 * @return the decoded YearNames object or null if the year is not in the file
+	 * @throws IOException (thrown if the block cannot be read or is corrupt)
+	 */
+	public YearNames readYear(int year) throws IOException {
+		YearNames decoded = null;
+		int i = indexOf(year);
+		if (i >= 0) {
+			decoded = new YearNames(year);
+			readYear(year, decoded);
+			//the total of the footer also counts rows the tree dropped as duplicates
+			decoded.totalBirths = totals[i];
+		}
+		return decoded;
+	}
+
+	/**
+	 * Method that reads the block of a single year and adds its rows to the YearNames
+	 * object passed as a parameter.
+	 * @param year (year to read) and target (YearNames object to fill)
+	 * @return true if the year was found, false otherwise
+	 * @throws IOException (thrown if the block cannot be read or is corrupt)
+	 */
+	public boolean readYear(int year, YearNames target) throws IOException {
+		int i = indexOf(year);
+		if (i < 0) {
+			return false;
+		}
+		byte[] block = new byte[lengths[i]];
+		synchronized (this) {
+			in.seek(offsets[i]);
+			in.readFully(block);
+		}
+		readBlock(block, rows[i], target);
+		return true;
+	}
+
+	/**
+	 * Helper method that finds the position of a year in the footer index.
+	 * @param year (year to find)
+	 * @return index or -1 if the year is not in the file
+	 */
+	private int indexOf(int year) {
+		for (int i = 0; i < years.length; i++) {
+			if (years[i] == year) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Closes the underlying file.
+	 * @throws IOException (thrown if the file cannot be closed)
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Method that writes every year of a directory to a file in the compact format.
+	 * @param directory (years to write) and file (file to create or overwrite)
+	 * @throws IOException (thrown if the file cannot be written)
+	 */
+	public static void write(YearDirectory directory, File file) throws IOException {
+		int[] allYears = directory.getYears();
+		long[] offsets = new long[allYears.length];
+		int[] lengths = new int[allYears.length];
+		int[] rows = new int[allYears.length];
+		int[] totals = new int[allYears.length];
+
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			Output header = new Output();
+			header.writeInt(MAGIC);
+			header.write(VERSION);
+			header.writeTo(out);
+			long position = header.size();
+
+			for (int i = 0; i < allYears.length; i++) {
+				YearNames year = directory.getYear(allYears[i]);
+				ArrayList<Name> inOrder = new ArrayList<Name>(year.size());
+				year.collect(inOrder);
+
+				Output block = new Output();
+				writeBlock(inOrder, block);
+				block.writeTo(out);
+
+				offsets[i] = position;
+				lengths[i] = block.size();
+				rows[i] = inOrder.size();
+				totals[i] = year.totalBirths;
+				position += block.size();
+			}
+
+			Output footer = new Output();
+			footer.writeInt(allYears.length);
+			for (int i = 0; i < allYears.length; i++) {
+				footer.writeInt(allYears[i]);
+				footer.writeLong(offsets[i]);
+				footer.writeInt(lengths[i]);
+				footer.writeInt(rows[i]);
+				footer.writeInt(totals[i]);
+			}
+			footer.writeLong(position);
+			footer.writeInt(MAGIC);
+			footer.writeTo(out);
+			out.getFD().sync();
+		}
+	}
+
+	/**
+	 * Helper method that encodes the rows of one year into a block:
+	 *
+	 *   varint names, then every name as varint length and utf-8 bytes
+	 *   varint counties, then every county as varint length and utf-8 bytes
+	 *   column of name ids as zigzag deltas from the previous row
+	 *   column of county ids
+	 *   column of genders packed four to a byte
+	 *   column of counts as zigzag deltas from the previous row
+	 *
+	 * @param inOrder (rows of the year in tree order) and out (buffer to write to)
+	 */
+	private static void writeBlock(ArrayList<Name> inOrder, Output out) {
+		HashMap<String, Integer> nameIds = new HashMap<String, Integer>();
+		HashMap<String, Integer> countyIds = new HashMap<String, Integer>();
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<String> counties = new ArrayList<String>();
+		int[] nameColumn = new int[inOrder.size()];
+		int[] countyColumn = new int[inOrder.size()];
+
+		//build the dictionaries in order of first appearance
+		for (int i = 0; i < inOrder.size(); i++) {
+			Name row = inOrder.get(i);
+			Integer id = nameIds.get(row.getName());
+			if (id == null) {
+				id = names.size();
+				nameIds.put(row.getName(), id);
+				names.add(row.getName());
+			}
+			nameColumn[i] = id;
+
+			id = countyIds.get(row.getCounty());
+			if (id == null) {
+				id = counties.size();
+				countyIds.put(row.getCounty(), id);
+				counties.add(row.getCounty());
+			}
+			countyColumn[i] = id;
+		}
+
+		out.writeVarInt(names.size());
+		for (String s : names) {
+			out.writeString(s);
+		}
+		out.writeVarInt(counties.size());
+		for (String s : counties) {
+			out.writeString(s);
+		}
+
+		int previous = 0;
+		for (int i = 0; i < nameColumn.length; i++) {
+			out.writeVarInt(zigzag(nameColumn[i] - previous));
+			previous = nameColumn[i];
+		}
+		for (int i = 0; i < countyColumn.length; i++) {
+			out.writeVarInt(countyColumn[i]);
+		}
+		int packed = 0;
+		for (int i = 0; i < inOrder.size(); i++) {
+			packed |= genderCode(inOrder.get(i).getGender()) << ((i % 4) * 2);
+			if (i % 4 == 3 || i == inOrder.size() - 1) {
+				out.write(packed);
+				packed = 0;
+			}
+		}
+		previous = 0;
+		for (int i = 0; i < inOrder.size(); i++) {
+			int count = inOrder.get(i).getCount();
+			out.writeVarInt(zigzag(count - previous));
+			previous = count;
+		}
+	}
+
+	/**
+	 * Helper method that decodes a block written by writeBlock() into a YearNames object.
+	 * @param block (bytes of the block) and size (number of rows) and target (YearNames object to fill)
+	 * @throws IOException (thrown if the block is corrupt)
+	 */
+	private static void readBlock(byte[] block, int size, YearNames target) throws IOException {
+		Input input = new Input(block);
+		String[] names = new String[input.readVarInt()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = input.readString();
+		}
+		String[] counties = new String[input.readVarInt()];
+		for (int i = 0; i < counties.length; i++) {
+			counties[i] = input.readString();
+		}
+
+		int[] nameColumn = new int[size];
+		int previous = 0;
+		for (int i = 0; i < size; i++) {
+			previous += unzigzag(input.readVarInt());
+			nameColumn[i] = previous;
+		}
+		int[] countyColumn = new int[size];
+		for (int i = 0; i < size; i++) {
+			countyColumn[i] = input.readVarInt();
+		}
+		int[] genderColumn = new int[size];
+		for (int i = 0; i < size; i += 4) {
+			int packed = input.read();
+			for (int j = i; j < i + 4 && j < size; j++) {
+				genderColumn[j] = (packed >>> ((j % 4) * 2)) & 3;
+			}
+		}
+
+		previous = 0;
+		try {
+			for (int i = 0; i < size; i++) {
+				previous += unzigzag(input.readVarInt());
+				target.add(new Name(names[nameColumn[i]], GENDERS[genderColumn[i]], previous, counties[countyColumn[i]]));
+			}
+		} catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Corrupt block for year " + target.getYear() + ".", e);
+		}
+	}
+
+	/**
+	 * Helper method that maps a gender string to its two bit code.
+	 * @param gender (gender of a Name object)
+	 * @return code between 0 and 3
+	 */
+	private static int genderCode(String gender) {
+		for (int i = 0; i < GENDERS.length; i++) {
+			if (GENDERS[i].equals(gender)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Invalid gender " + gender);
+	}
+
+	/**
+	 * Helper method that maps signed integers to unsigned ones so small negative deltas
+	 * stay small as variable length integers.
+	 */
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	/**
+	 * Helper method that reverses zigzag().
+	 */
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Growable byte buffer with the primitive writers used by the format.
+	 */
+	private static class Output extends ByteArrayOutputStream {
+
+		protected void writeInt(int value) {
+			write(value >>> 24);
+			write(value >>> 16);
+			write(value >>> 8);
+			write(value);
+		}
+
+		protected void writeLong(long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		protected void writeVarInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			write(value);
+		}
+
+		protected void writeString(String s) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			write(bytes, 0, bytes.length);
+		}
+	}
+
+	/**
+	 * Cursor over the bytes of a block with the primitive readers used by the format.
+	 */
+	private static class Input {
+
+		private final byte[] bytes;
+		private int position = 0;
+
+		protected Input(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		protected int read() throws IOException {
+			if (position >= bytes.length) {
+				throw new IOException("Unexpected end of block.");
+			}
+			return bytes[position++] & 0xFF;
+		}
+
+		protected int readVarInt() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = read();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed variable length integer.");
+		}
+
+		protected String readString() throws IOException {
+			int length = readVarInt();
+			if (length < 0 || position + length > bytes.length) {
+				throw new IOException("Unexpected end of block.");
+			}
+			String s = new String(bytes, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return s;
+		}
+	}
+}
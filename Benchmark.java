@@ -0,0 +1,581 @@
+package project5;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * This class runs the benchmarks of the program against a CSV file. Every benchmark is
+ * selected by a mode given as the first argument:
+ *
+ *   java project5.Benchmark arena file.csv
+ *   java project5.Benchmark stream file.csv
+ *   java project5.Benchmark approx file.csv
+ *   java project5.Benchmark btree file.csv
+ *   java project5.Benchmark similar file.csv
+ *   java project5.Benchmark alloc file.csv
+ *
+ * Run it with a fixed heap (for example -Xms2g -Xmx2g) so that the numbers of different
+ * runs can be compared.
+ * @author Sarah Wardles
+ *
+ */
+public class Benchmark {
+
+	//number of times every measured operation is repeated
+	private static final int ROUNDS = 5;
+
+	/**
+	 * Main method that runs the benchmark selected by the arguments.
+	 * @param args
+	 *   the mode and the CSV file
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage Error: the program expects a mode and a file name as arguments.");
+			System.exit(1);
+		}
+		File file = new File(args[1]);
+		if (!file.canRead()) {
+			System.err.println("Error: cannot read the file at " + file.getAbsolutePath());
+			System.exit(1);
+		}
+
+		try {
+			if (args[0].equals("arena")) {
+				arena(file);
+			} else if (args[0].equals("stream")) {
+				stream(file);
+			} else if (args[0].equals("approx")) {
+				approx(file);
+			} else if (args[0].equals("btree")) {
+				btree(file);
+			} else if (args[0].equals("similar")) {
+				similar(file);
+			} else if (args[0].equals("alloc")) {
+				if (!alloc(file)) {
+					System.exit(2);
+				}
+			} else {
+				System.err.println("Usage Error: unknown mode " + args[0]);
+				System.exit(1);
+			}
+		} catch (FileNotFoundException e) {
+			System.err.println("Error: there is a problem with the file at " + file.getAbsolutePath());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * This method compares the heap usage, the garbage collection cost and the query time
+	 * of the object tree (YearNames) and the arena tree (ArenaYearNames).
+	 * @param file (CSV file to load)
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	public static void arena(File file) throws FileNotFoundException {
+		System.out.println("engine  load ms  heap MB  gc during load ms  full gc ms  queries ms");
+		for (String engine : new String[] {"avl", "arena", "avl", "arena"}) {
+			collectGarbage();
+			long heapBefore = usedHeap();
+			long gcBefore = gcMillis();
+
+			long start = System.nanoTime();
+			YearDirectory directory = load(file, engine);
+			long load = System.nanoTime() - start;
+			long gcLoad = gcMillis() - gcBefore;
+
+			collectGarbage();
+			long heap = usedHeap() - heapBefore;
+
+			//a full collection has to mark everything that is live, so time it with the data loaded
+			start = System.nanoTime();
+			for (int i = 0; i < ROUNDS; i++) {
+				System.gc();
+			}
+			long fullGc = (System.nanoTime() - start) / ROUNDS;
+
+			ArrayList<Name> sample = sample(directory, 200);
+			start = System.nanoTime();
+			double sink = 0;
+			for (int i = 0; i < ROUNDS; i++) {
+				for (Name name : sample) {
+					for (YearNames year : directory) {
+						sink += year.getFractionByName(name.getName());
+						sink += year.getFractionByNameCounty(name.getName(), name.getCounty());
+					}
+				}
+			}
+			long queries = (System.nanoTime() - start) / ROUNDS;
+
+			System.out.printf("%-6s  %7d  %7.1f  %17d  %10.1f  %10.1f%s%n", engine, load / 1000000,
+					heap / 1048576.0, gcLoad, fullGc / 1e6, queries / 1e6, sink < 0 ? "!" : "");
+		}
+	}
+
+	/**
+	 * This method measures how parallel streams over the trees scale: it adds up the
+	 * babies of every county and of every gender over all years, first sequentially and
+	 * then in fork/join pools of growing size. Both pipelines are warmed up sequentially
+	 * and in parallel before anything is timed, so the sequential baseline is not measured
+	 * on cold code, and every time is the median of ROUNDS runs.
+	 * @param file (CSV file to load)
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	public static void stream(File file) throws FileNotFoundException {
+		final YearDirectory directory = load(file, "avl");
+		int processors = Runtime.getRuntime().availableProcessors();
+
+		//warm up every pipeline before the baseline is measured
+		ForkJoinPool warmUp = new ForkJoinPool(processors);
+		try {
+			for (int round = 0; round < 5; round++) {
+				for (boolean parallel : new boolean[] {false, true}) {
+					streamCounties(directory, parallel, warmUp);
+					streamGenders(directory, parallel, warmUp);
+				}
+			}
+		} finally {
+			warmUp.shutdown();
+		}
+
+		System.out.println("threads  county ms  gender ms  county speedup  gender speedup");
+		double countyBase = 0;
+		double genderBase = 0;
+		for (int threads = 0; threads <= processors; threads = threads == 0 ? 1 : threads * 2) {
+			boolean parallel = threads > 0;
+			ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+			double[] county = new double[ROUNDS];
+			double[] gender = new double[ROUNDS];
+			try {
+				for (int round = 0; round < ROUNDS; round++) {
+					county[round] = streamCounties(directory, parallel, pool);
+					gender[round] = streamGenders(directory, parallel, pool);
+				}
+			} finally {
+				pool.shutdown();
+			}
+			Arrays.sort(county);
+			Arrays.sort(gender);
+			double countyMedian = county[ROUNDS / 2];
+			double genderMedian = gender[ROUNDS / 2];
+			if (!parallel) {
+				countyBase = countyMedian;
+				genderBase = genderMedian;
+			}
+			System.out.printf("%-7s  %9.1f  %9.1f  %14.2f  %14.2f%n", parallel ? String.valueOf(threads) : "seq",
+					countyMedian, genderMedian, countyBase / countyMedian, genderBase / genderMedian);
+		}
+	}
+
+	/**
+	 * Helper method that adds up the babies of every county of every year with streams in a pool.
+	 * @return time in milliseconds
+	 */
+	private static double streamCounties(YearDirectory directory, boolean parallel, ForkJoinPool pool) {
+		long start = System.nanoTime();
+		run(pool, () -> {
+			for (YearNames year : directory) {
+				Stream<Name> names = parallel ? year.stream().parallel() : year.stream();
+				names.collect(Collectors.groupingBy(n -> Name.fold(n.getCounty()), Collectors.summingInt(Name::getCount)));
+			}
+		});
+		return (System.nanoTime() - start) / 1e6;
+	}
+
+	/**
+	 * Helper method that adds up the girls of every year with streams in a pool.
+	 * @return time in milliseconds
+	 */
+	private static double streamGenders(YearDirectory directory, boolean parallel, ForkJoinPool pool) {
+		long start = System.nanoTime();
+		run(pool, () -> {
+			for (YearNames year : directory) {
+				Stream<Name> names = parallel ? year.stream().parallel() : year.stream();
+				names.filter(n -> n.getGender().equalsIgnoreCase("f")).mapToLong(Name::getCount).sum();
+			}
+		});
+		return (System.nanoTime() - start) / 1e6;
+	}
+
+	/**
+	 * Helper method that runs a task in a pool and waits for it.
+	 */
+	private static void run(ForkJoinPool pool, Runnable task) {
+		try {
+			pool.submit(task).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * This method measures accuracy against memory of the approximate mode. For a range of
+	 * error bounds it loads the file into Count-Min sketches and compares the estimate of
+	 * every name and every (name, county) pair of every year with the exact count of the
+	 * AVL trees.
+	 * @param file (CSV file to load)
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	public static void approx(File file) throws FileNotFoundException {
+		collectGarbage();
+		long heapBefore = usedHeap();
+		YearDirectory exact = load(file, "avl");
+		collectGarbage();
+		long exactHeap = usedHeap() - heapBefore;
+
+		//the exact counts of every key of every year, taken from the trees
+		ArrayList<int[]> years = new ArrayList<int[]>();
+		ArrayList<ArrayList<String[]>> keys = new ArrayList<ArrayList<String[]>>();
+		for (YearNames year : exact) {
+			TreeMap<String, String[]> distinct = new TreeMap<String, String[]>();
+			for (Name name : year) {
+				distinct.putIfAbsent(Name.fold(name.getName()), new String[] {name.getName(), null});
+				distinct.putIfAbsent(BloomFilter.pairKey(Name.fold(name.getName()), Name.fold(name.getCounty())),
+						new String[] {name.getName(), name.getCounty()});
+			}
+			ArrayList<String[]> list = new ArrayList<String[]>(distinct.values());
+			int[] counts = new int[list.size()];
+			for (int i = 0; i < counts.length; i++) {
+				String[] key = list.get(i);
+				counts[i] = key[1] == null ? year.getCountByName(key[0]) : year.getCountByNameCounty(key[0], key[1]);
+			}
+			keys.add(list);
+			years.add(counts);
+		}
+
+		System.out.printf("exact AVL trees: %.1f MB of heap%n", exactHeap / 1048576.0);
+		System.out.println("epsilon   sketch KB  heap MB  name mean err  name max err  name in bound"
+				+ "  pair mean err  pair max err  pair in bound");
+		for (double epsilon : new double[] {0.01, 0.001, 0.0001, 0.00001}) {
+			collectGarbage();
+			heapBefore = usedHeap();
+			YearDirectory directory = new ApproxYearDirectory(epsilon, NYSBabyNames.APPROX_DELTA);
+			Scanner scanner = new Scanner(file);
+			NYSBabyNames.readCSV(scanner, directory);
+			scanner.close();
+			collectGarbage();
+			long heap = usedHeap() - heapBefore;
+
+			//per kind of key (name, pair): keys, sum of errors, largest error, keys within the bound
+			long[][] stats = new long[2][4];
+			int y = 0;
+			for (YearNames exactYear : exact) {
+				ApproxYearNames year = (ApproxYearNames) directory.getYear(exactYear.getYear());
+				long bound = year.getCountError();
+				ArrayList<String[]> list = keys.get(y);
+				int[] counts = years.get(y++);
+				for (int i = 0; i < counts.length; i++) {
+					String[] key = list.get(i);
+					int kind = key[1] == null ? 0 : 1;
+					long error = (key[1] == null ? year.getCountByName(key[0]) : year.getCountByNameCounty(key[0], key[1])) - counts[i];
+					stats[kind][0]++;
+					stats[kind][1] += error;
+					stats[kind][2] = Math.max(stats[kind][2], error);
+					stats[kind][3] += error <= bound ? 1 : 0;
+				}
+			}
+			System.out.printf("%-8s  %9.1f  %7.1f  %13.2f  %12d  %12.2f%%  %13.2f  %12d  %12.2f%%%n", epsilon,
+					((ApproxYearDirectory) directory).sketchBytes() / 1024.0, heap / 1048576.0,
+					(double) stats[0][1] / Math.max(1, stats[0][0]), stats[0][2], 100.0 * stats[0][3] / Math.max(1, stats[0][0]),
+					(double) stats[1][1] / Math.max(1, stats[1][0]), stats[1][2], 100.0 * stats[1][3] / Math.max(1, stats[1][0]));
+		}
+	}
+
+	/**
+	 * This method compares the B+tree (BTreeYearNames) with the AVL trees (YearNames and
+	 * ArenaYearNames): the time to insert every row, to look up the names of a sample and
+	 * their counties in every year, to iterate over every name, and to scan the names that
+	 * start with the first two letters of every name of the sample.
+	 * @param file (CSV file to load)
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	public static void btree(File file) throws FileNotFoundException {
+		//parse once so that inserting only measures the trees
+		ArrayList<Integer> years = new ArrayList<Integer>();
+		ArrayList<Name> rows = new ArrayList<Name>();
+		Scanner scanner = new Scanner(file);
+		NYSBabyNames.readCSV(scanner, (year, name) -> {
+			years.add(year);
+			rows.add(name);
+		});
+		scanner.close();
+
+		System.out.println("engine  insert ms  lookups ms  iterate ms  prefix scans ms  prefix nodes");
+		for (String engine : new String[] {"avl", "arena", "btree", "avl", "arena", "btree"}) {
+			collectGarbage();
+			long start = System.nanoTime();
+			YearDirectory directory = NYSBabyNames.newDirectory(engine);
+			for (int i = 0; i < rows.size(); i++) {
+				directory.add(years.get(i), rows.get(i));
+			}
+			long insert = System.nanoTime() - start;
+
+			ArrayList<Name> sample = sample(directory, 200);
+			start = System.nanoTime();
+			long sink = 0;
+			for (int i = 0; i < ROUNDS; i++) {
+				for (Name name : sample) {
+					for (YearNames year : directory) {
+						sink += year.getCountByName(name.getName());
+						sink += year.getCountByNameCounty(name.getName(), name.getCounty());
+					}
+				}
+			}
+			long lookups = (System.nanoTime() - start) / ROUNDS;
+
+			start = System.nanoTime();
+			for (int i = 0; i < ROUNDS; i++) {
+				for (YearNames year : directory) {
+					for (Name name : year) {
+						sink += name.getCount();
+					}
+				}
+			}
+			long iterate = (System.nanoTime() - start) / ROUNDS;
+
+			long[] matched = new long[1];
+			long nodes = 0;
+			start = System.nanoTime();
+			for (int i = 0; i < ROUNDS; i++) {
+				for (Name name : sample) {
+					String prefix = name.getName().substring(0, Math.min(2, name.getName().length()));
+					for (YearNames year : directory) {
+						nodes += year.scan(new QueryPlan.NameBound(prefix, true, null, null, QueryPlan.NameBound.LOW),
+								new QueryPlan.NameBound(prefix, true, null, null, QueryPlan.NameBound.HIGH), n -> matched[0] += n.getCount());
+					}
+				}
+			}
+			long prefixScans = (System.nanoTime() - start) / ROUNDS;
+
+			System.out.printf("%-6s  %9.1f  %10.1f  %10.1f  %15.1f  %12d%s%n", engine, insert / 1e6, lookups / 1e6,
+					iterate / 1e6, prefixScans / 1e6, nodes / ROUNDS, sink + matched[0] < 0 ? "!" : "");
+		}
+	}
+
+	/**
+	 * This method measures the similarity search: the time to build a SimilarityIndex in
+	 * fork/join pools of growing size, and the time of a top 10 search with similar() (the
+	 * VP-trees, unless the index dropped a tree that did not prune) and by comparing every
+	 * curve, for the names of a sample. It also counts the searches where the two did not
+	 * find the same names.
+	 * @param file (CSV file to load)
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	public static void similar(File file) throws FileNotFoundException {
+		YearDirectory directory = load(file, "avl");
+		int processors = Runtime.getRuntime().availableProcessors();
+		System.out.println("threads  build ms  speedup");
+		SimilarityIndex index = null;
+		double base = 0;
+		for (int threads = 1; threads <= processors; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			double build = 0;
+			//warm up, then measure
+			for (int round = 0; round < 2; round++) {
+				long start = System.nanoTime();
+				index = new SimilarityIndex(directory, pool);
+				build = (System.nanoTime() - start) / 1e6;
+			}
+			pool.shutdown();
+			base = threads == 1 ? build : base;
+			System.out.printf("%-7d  %8.1f  %7.2f%n", threads, build, base / build);
+		}
+
+		ArrayList<Name> sample = sample(directory, 200);
+		System.out.printf("%n%d names%n", index.size());
+		System.out.println("metric       similar() us/search  brute force us/search  different results  similar() uses");
+		String[] labels = {"correlation", "euclidean"};
+		for (int metric : new int[] {SimilarityIndex.CORRELATION, SimilarityIndex.EUCLIDEAN}) {
+			long tree = 0;
+			long brute = 0;
+			int searches = 0;
+			int different = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				for (Name name : sample) {
+					ArrayList<SimilarityIndex.Match> fromTree;
+					ArrayList<SimilarityIndex.Match> fromScan;
+					try {
+						long start = System.nanoTime();
+						fromTree = index.similar(name.getName(), 10, metric);
+						tree += System.nanoTime() - start;
+						start = System.nanoTime();
+						fromScan = index.bruteForce(name.getName(), 10, metric);
+						brute += System.nanoTime() - start;
+					} catch (IllegalArgumentException e) {
+						continue; // no trend to compare
+					}
+					searches++;
+					for (int i = 0; i < fromTree.size(); i++) {
+						if (fromTree.get(i).getDistance() != fromScan.get(i).getDistance()) {
+							different++;
+							break;
+						}
+					}
+				}
+			}
+			System.out.printf("%-11s  %19.1f  %21.1f  %17d  %s%n", labels[metric], tree / 1e3 / Math.max(1, searches),
+					brute / 1e3 / Math.max(1, searches), different / ROUNDS, index.hasTree(metric) ? "tree" : "brute force");
+		}
+	}
+
+	/**
+	 * This method checks that the query path with caller supplied buffers does not allocate.
+	 * For every engine it answers the names of a sample, over all counties and in their
+	 * county, once with NYSBabyNames.answer() and once each with YearDirectory.fractions()
+	 * and YearDirectory.counts() and one reused key and buffer, and reports the bytes the
+	 * thread allocated per query after a warm up (so that the compiler has inlined the walks).
+	 * @param file (CSV file to load)
+	 * @return true if the buffer path allocated nothing for every engine
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	public static boolean alloc(File file) throws FileNotFoundException {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		boolean passed = true;
+		System.out.println("engine  answer() bytes/query  answer() us/query  fractions() bytes/query  fractions() us/query"
+				+ "  counts() bytes/query  counts() us/query");
+		for (String engine : new String[] {"avl", "arena", "btree"}) {
+			YearDirectory directory = load(file, engine);
+			ArrayList<Name> sample = sample(directory, 200);
+			//the queries: every name of the sample over all counties and in its county
+			String[] names = new String[sample.size() * 2];
+			String[] counties = new String[names.length];
+			for (int i = 0; i < sample.size(); i++) {
+				names[2 * i] = sample.get(i).getName();
+				counties[2 * i] = "all";
+				names[2 * i + 1] = sample.get(i).getName();
+				counties[2 * i + 1] = sample.get(i).getCounty();
+			}
+			NameKey key = new NameKey();
+			double[] fractions = new double[directory.size()];
+			int[] counts = new int[directory.size()];
+			double sink = 0;
+
+			for (int round = 0; round < 20; round++) {
+				for (int i = 0; i < names.length; i++) {
+					double[] answer = NYSBabyNames.answer(directory, names[i], counties[i]);
+					sink += answer == null ? 0 : answer[0];
+					directory.fractions(key.set(names[i], counties[i].equals("all") ? null : counties[i]), fractions);
+					sink += fractions[0];
+					directory.counts(key, counts);
+					sink += counts[0];
+				}
+			}
+
+			long start = System.nanoTime();
+			long before = threads.getThreadAllocatedBytes(thread);
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int i = 0; i < names.length; i++) {
+					double[] answer = NYSBabyNames.answer(directory, names[i], counties[i]);
+					sink += answer == null ? 0 : answer[0];
+				}
+			}
+			long answerBytes = threads.getThreadAllocatedBytes(thread) - before;
+			long answerTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			before = threads.getThreadAllocatedBytes(thread);
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int i = 0; i < names.length; i++) {
+					directory.fractions(key.set(names[i], counties[i].equals("all") ? null : counties[i]), fractions);
+					sink += fractions[0];
+				}
+			}
+			long fractionBytes = threads.getThreadAllocatedBytes(thread) - before;
+			long fractionTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			before = threads.getThreadAllocatedBytes(thread);
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int i = 0; i < names.length; i++) {
+					directory.counts(key.set(names[i], counties[i].equals("all") ? null : counties[i]), counts);
+					sink += counts[0];
+				}
+			}
+			long countBytes = threads.getThreadAllocatedBytes(thread) - before;
+			long countTime = System.nanoTime() - start;
+
+			int queries = ROUNDS * names.length;
+			passed &= fractionBytes == 0 && countBytes == 0;
+			System.out.printf("%-6s  %20.1f  %17.1f  %23.1f  %20.1f  %20.1f  %17.1f%s%n", engine, (double) answerBytes / queries,
+					answerTime / 1e3 / queries, (double) fractionBytes / queries, fractionTime / 1e3 / queries,
+					(double) countBytes / queries, countTime / 1e3 / queries, sink < 0 ? "!" : "");
+		}
+		System.out.println(passed ? "PASS: the buffer path does not allocate" : "FAIL: the buffer path allocates");
+		return passed;
+	}
+
+	/**
+	 * Helper method that loads a CSV file into a directory of the specified engine.
+	 * @param file (CSV file) and engine (engine as accepted by NYSBabyNames.newDirectory)
+	 * @return the loaded directory
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	protected static YearDirectory load(File file, String engine) throws FileNotFoundException {
+		YearDirectory directory = NYSBabyNames.newDirectory(engine);
+		Scanner scanner = new Scanner(file);
+		NYSBabyNames.readCSV(scanner, directory);
+		scanner.close();
+		return directory;
+	}
+
+	/**
+	 * Helper method that picks up to size Name objects spread over the first year of a directory.
+	 * @param directory (loaded directory) and size (number of names to pick)
+	 * @return list of names
+	 */
+	protected static ArrayList<Name> sample(YearDirectory directory, int size) {
+		ArrayList<Name> all = new ArrayList<Name>();
+		ArrayList<Name> sample = new ArrayList<Name>();
+		if (directory.size() == 0) {
+			return sample;
+		}
+		directory.iterator().next().collect(all);
+		int step = Math.max(1, all.size() / size);
+		for (int i = 0; i < all.size() && sample.size() < size; i += step) {
+			sample.add(all.get(i));
+		}
+		return sample;
+	}
+
+	/**
+	 * Helper method that runs the garbage collector a few times so the heap is settled.
+	 */
+	protected static void collectGarbage() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+	}
+
+	/**
+	 * Helper method that returns the number of bytes used on the heap.
+	 * @return used heap in bytes
+	 */
+	protected static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Helper method that returns the total time spent in garbage collection so far.
+	 * @return collection time in milliseconds
+	 */
+	protected static long gcMillis() {
+		long total = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += Math.max(0, bean.getCollectionTime());
+		}
+		return total;
+	}
+}
@@ -0,0 +1,132 @@
+package project5;
+
+/**
+ * This class is a Bloom filter over strings. It answers "maybe present" or "certainly
+ * absent" for a key using a fixed number of bits, so a query for a name that is not in
+ * the dataset can be rejected before any tree is touched. Keys are used as they are
+ * given; callers fold the case with Name.fold() first.
+ *
+ * The number of bits and of hash functions are chosen from the expected number of keys
+ * and the wanted false positive rate. Adding more keys than expected keeps the filter
+ * correct but raises its false positive rate.
+ * @author Sarah Wardles
+ *
+ */
+public class BloomFilter {
+
+	//constants of the FNV-1a hash of the characters of a key
+	static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	static final long FNV_PRIME = 0x100000001b3L;
+
+	//the bits of the filter
+	private long[] bits;
+	//number of bits and number of hash functions
+	private long size;
+	private int hashes;
+
+	/**
+	 * This is the constructor for the BloomFilter object.
+	 * @param expected (expected number of keys, at least 1 is used)
+	 * @param falsePositiveRate (wanted false positive rate, must be between 0 and 1)
+	 * @throws IllegalArgumentException (thrown if the false positive rate is not between 0 and 1)
+	 */
+	public BloomFilter(long expected, double falsePositiveRate) {
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("The program must take a false positive rate between 0 and 1 as a parameter.");
+		}
+		expected = Math.max(1, expected);
+		double ln2 = Math.log(2);
+		size = Math.max(64, (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (ln2 * ln2)));
+		size = (size + 63) / 64 * 64;
+		hashes = (int) Math.max(1, Math.round((double) size / expected * ln2));
+		bits = new long[(int) (size / 64)];
+	}
+
+	/**
+	 * Method that adds a key to the filter.
+	 * @param key (key to add)
+	 */
+	public void add(String key) {
+		long h1 = hash(key);
+		long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashes; i++) {
+			long bit = Long.remainderUnsigned(h1 + i * h2, size);
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * Method that checks if a key may have been added to the filter.
+	 * @param key (key to check)
+	 * @return false if the key was certainly never added, true if it may have been
+	 */
+	public boolean mightContain(String key) {
+		return mightContainHash(hash(key));
+	}
+
+	/**
+	 * Method that checks if a key may have been added to the filter, given the hash of the
+	 * key, so that callers can hash a key once and check it against several filters.
+	 * @param h1 (hash of the key as computed by hash())
+	 * @return false if the key was certainly never added, true if it may have been
+	 */
+	public boolean mightContainHash(long h1) {
+		long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashes; i++) {
+			long bit = Long.remainderUnsigned(h1 + i * h2, size);
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Helper method that returns the number of hash functions.
+	 * @return number of hash functions
+	 */
+	public int hashCount() {
+		return hashes;
+	}
+
+	/**
+	 * Helper method that returns the number of bytes used by the bits of the filter.
+	 * @return bytes used by the filter
+	 */
+	public long memoryBytes() {
+		return (long) bits.length * Long.BYTES;
+	}
+
+	/**
+	 * Helper method that returns the key of a (name, county) pair.
+	 * @param foldedName (folded name) and foldedCounty (folded county)
+	 * @return the key of the pair
+	 */
+	public static String pairKey(String foldedName, String foldedCounty) {
+		return foldedName + '\u0000' + foldedCounty;
+	}
+
+	/**
+	 * Helper method that hashes the characters of a key (FNV-1a followed by a final mix).
+	 */
+	static long hash(String key) {
+		long h = FNV_OFFSET;
+		for (int i = 0; i < key.length(); i++) {
+			h ^= key.charAt(i);
+			h *= FNV_PRIME;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * Helper method that spreads the bits of a hash (the finalizer of MurmurHash3).
+	 */
+	static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,103 @@
+package project5;
+
+/**
+ * This class is a Count-Min sketch over strings. It keeps a running count per key in a
+ * fixed table of depth rows of width counters: every key adds its count to one counter
+ * per row, and the estimate of a key is the smallest of its counters. The estimate is
+ * never below the true count, and with probability 1 - delta it is at most
+ * epsilon * (sum of all counts) above it, whatever the number of keys. Keys are used as
+ * they are given; callers fold the case with Name.fold() first.
+ *
+ * Counts can be taken off again with a negative count, as long as no key goes below 0.
+ * @author Sarah Wardles
+ *
+ */
+public class CountMinSketch {
+
+	//the counters, row after row
+	private int[] counters;
+	private int width;
+	private int depth;
+	//the error settings and the sum of all counts
+	private double epsilon;
+	private double delta;
+	private long total = 0;
+
+	/**
+	 * This is the constructor for the CountMinSketch object.
+	 * @param epsilon (error as a share of the sum of all counts, must be between 0 and 1)
+	 * @param delta (probability that an estimate is off by more, must be between 0 and 1)
+	 * @throws IllegalArgumentException (thrown if epsilon or delta is not between 0 and 1)
+	 */
+	public CountMinSketch(double epsilon, double delta) {
+		if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+			throw new IllegalArgumentException("The program must take an error bound between 0 and 1 as a parameter.");
+		}
+		this.epsilon = epsilon;
+		this.delta = delta;
+		width = (int) Math.ceil(Math.E / epsilon);
+		depth = (int) Math.max(1, Math.ceil(Math.log(1 / delta)));
+		counters = new int[width * depth];
+	}
+
+	/**
+	 * Method that adds a count to a key.
+	 * @param key (key to count) and count (count to add, negative to take it off again)
+	 */
+	public void add(String key, int count) {
+		long h1 = BloomFilter.hash(key);
+		long h2 = BloomFilter.mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int row = 0; row < depth; row++) {
+			counters[row * width + (int) Long.remainderUnsigned(h1 + row * h2, width)] += count;
+		}
+		total += count;
+	}
+
+	/**
+	 * Method that estimates the count of a key.
+	 * @param key (key to estimate)
+	 * @return the estimate, at least the true count
+	 */
+	public int estimate(String key) {
+		long h1 = BloomFilter.hash(key);
+		long h2 = BloomFilter.mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+		int estimate = Integer.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counters[row * width + (int) Long.remainderUnsigned(h1 + row * h2, width)]);
+		}
+		return estimate;
+	}
+
+	/**
+	 * Method that returns how far an estimate can be above the true count, with probability
+	 * 1 - delta.
+	 * @return the error bound of the estimates
+	 */
+	public long errorBound() {
+		return (long) Math.ceil(epsilon * total);
+	}
+
+	/**
+	 * Helper method that returns the sum of all counts.
+	 * @return sum of all counts
+	 */
+	public long total() {
+		return total;
+	}
+
+	/**
+	 * Helper method that returns the probability that an estimate is off by more than errorBound().
+	 * @return delta
+	 */
+	public double failureProbability() {
+		return delta;
+	}
+
+	/**
+	 * Helper method that returns the number of bytes used by the counters of the sketch.
+	 * @return bytes used by the sketch
+	 */
+	public long memoryBytes() {
+		return (long) counters.length * Integer.BYTES;
+	}
+}
@@ -0,0 +1,343 @@
+package project5;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * This class is the county dimension of the dataset. It gives every county and every name
+ * an id and precomputes, for every year, a matrix with the number of babies of every name
+ * in every county plus the total number of babies of every county. Counties can also be
+ * grouped into regions (for example the five boroughs of New York City and the rest of
+ * the state). Questions about one name over all counties are then answered by scanning one
+ * row of the matrix instead of walking every tree once per county.
+ *
+ * The index is a copy of the directory at the time it was built; it does not see later changes.
+ * @author Sarah Wardles
+ *
+ */
+public class CountyIndex {
+
+	//passed as a year to add up every year of the index
+	public static final int ALL_YEARS = 0;
+
+	//id of every folded county and the spelling it was first seen with
+	protected HashMap<String, Integer> countyIds = new HashMap<String, Integer>();
+	protected ArrayList<String> counties = new ArrayList<String>();
+	//id of every folded name
+	protected HashMap<String, Integer> nameIds = new HashMap<String, Integer>();
+	//region id of every county and the name of every region
+	protected int[] regionOf;
+	protected ArrayList<String> regions = new ArrayList<String>();
+	//years of the index in directory order
+	protected int[] years;
+	//per year: number of babies of name n in county c at n * counties + c
+	protected int[][] matrix;
+	//per year: number of babies in every county
+	protected int[][] countyTotals;
+
+	/**
+	 * This is the constructor for the CountyIndex object. It reads every year of the
+	 * directory twice: once to assign the ids and once to fill the matrices.
+	 * @param directory (years to index)
+	 * @param regionMap (region of every county, keys are compared ignoring case; null for no regions)
+	 * @param defaultRegion (region of the counties that are not in the map)
+	 */
+	public CountyIndex(YearDirectory directory, Map<String, String> regionMap, String defaultRegion) {
+		years = directory.getYears();
+		ArrayList<ArrayList<Name>> rows = new ArrayList<ArrayList<Name>>();
+		for (int year : years) {
+			ArrayList<Name> names = new ArrayList<Name>();
+			directory.getYear(year).collect(names);
+			rows.add(names);
+			for (Name name : names) {
+				String county = Name.fold(name.getCounty());
+				if (!countyIds.containsKey(county)) {
+					countyIds.put(county, counties.size());
+					counties.add(name.getCounty());
+				}
+				String key = Name.fold(name.getName());
+				if (!nameIds.containsKey(key)) {
+					nameIds.put(key, nameIds.size());
+				}
+			}
+		}
+
+		//map the counties to regions
+		HashMap<String, String> folded = new HashMap<String, String>();
+		if (regionMap != null) {
+			for (Map.Entry<String, String> entry : regionMap.entrySet()) {
+				folded.put(Name.fold(entry.getKey()), entry.getValue());
+			}
+		}
+		regionOf = new int[counties.size()];
+		for (int c = 0; c < counties.size(); c++) {
+			String region = folded.get(Name.fold(counties.get(c)));
+			if (region == null) {
+				region = defaultRegion;
+			}
+			int id = regions.indexOf(region);
+			if (id < 0) {
+				id = regions.size();
+				regions.add(region);
+			}
+			regionOf[c] = id;
+		}
+
+		//fill the matrices
+		int width = counties.size();
+		matrix = new int[years.length][];
+		countyTotals = new int[years.length][];
+		for (int y = 0; y < years.length; y++) {
+			matrix[y] = new int[nameIds.size() * width];
+			countyTotals[y] = new int[width];
+			for (Name name : rows.get(y)) {
+				int county = countyIds.get(Name.fold(name.getCounty()));
+				int row = nameIds.get(Name.fold(name.getName()));
+				matrix[y][row * width + county] += name.getCount();
+				countyTotals[y][county] += name.getCount();
+			}
+			rows.set(y, null);
+		}
+	}
+
+	/**
+	 * Method that returns the regions of New York City: the five counties of the city are
+	 * mapped to "NYC". Used with "Upstate" as the default region for the rest of the state.
+	 * @return map from county to region
+	 */
+	public static HashMap<String, String> newYorkRegions() {
+		HashMap<String, String> map = new HashMap<String, String>();
+		for (String borough : new String[] {"Bronx", "Kings", "New York", "Queens", "Richmond"}) {
+			map.put(borough, "NYC");
+		}
+		return map;
+	}
+
+	/**
+	 * Method that reads a region map from a file with one "county,region" pair per line.
+	 * Lines without a comma are skipped.
+	 * @param file (file to read)
+	 * @return map from county to region
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	public static HashMap<String, String> readRegions(File file) throws FileNotFoundException {
+		HashMap<String, String> map = new HashMap<String, String>();
+		try (Scanner scanner = new Scanner(file)) {
+			while (scanner.hasNextLine()) {
+				String line = scanner.nextLine();
+				int comma = line.indexOf(',');
+				if (comma > 0) {
+					map.put(line.substring(0, comma).trim(), line.substring(comma + 1).trim());
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Method that returns the number of babies with a name in a county.
+	 * @param name (name to find) and county (county to find) and year (year or ALL_YEARS)
+	 * @return number of babies
+	 */
+	public int getCount(String name, String county, int year) {
+		Integer row = nameIds.get(Name.fold(name));
+		Integer column = countyIds.get(Name.fold(county));
+		if (row == null || column == null) {
+			return 0;
+		}
+		int count = 0;
+		for (int y = 0; y < years.length; y++) {
+			if (year == ALL_YEARS || years[y] == year) {
+				count += matrix[y][row * counties.size() + column];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Method that returns the number of babies with a name in every county.
+	 * @param name (name to find) and year (year or ALL_YEARS)
+	 * @return number of babies, indexed by county id
+	 */
+	public int[] getCounts(String name, int year) {
+		int width = counties.size();
+		int[] counts = new int[width];
+		Integer row = nameIds.get(Name.fold(name));
+		if (row == null) {
+			return counts;
+		}
+		for (int y = 0; y < years.length; y++) {
+			if (year == ALL_YEARS || years[y] == year) {
+				int[] cells = matrix[y];
+				int start = row * width;
+				for (int c = 0; c < width; c++) {
+					counts[c] += cells[start + c];
+				}
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Method that returns the total number of babies in every county.
+	 * @param year (year or ALL_YEARS)
+	 * @return number of babies, indexed by county id
+	 */
+	public int[] getCountyTotals(int year) {
+		int[] totals = new int[counties.size()];
+		for (int y = 0; y < years.length; y++) {
+			if (year == ALL_YEARS || years[y] == year) {
+				for (int c = 0; c < totals.length; c++) {
+					totals[c] += countyTotals[y][c];
+				}
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * Method that returns the share of a name in every county (number of babies with the
+	 * name / total number of babies in the county), the same fraction that
+	 * YearNames.getFractionByNameCounty() returns for one county.
+	 * @param name (name to find) and year (year or ALL_YEARS)
+	 * @return shares, indexed by county id
+	 */
+	public double[] getShares(String name, int year) {
+		int[] counts = getCounts(name, year);
+		int[] totals = getCountyTotals(year);
+		double[] shares = new double[counts.length];
+		for (int c = 0; c < shares.length; c++) {
+			shares[c] = totals[c] == 0 ? 0 : (double) counts[c] / totals[c];
+		}
+		return shares;
+	}
+
+	/**
+	 * Method that ranks the counties by the share of a name, highest share first. Counties
+	 * without any baby of that name are left out.
+	 * @param name (name to find) and year (year or ALL_YEARS)
+	 * @return county ids in ranking order
+	 */
+	public int[] rankCounties(String name, int year) {
+		final double[] shares = getShares(name, year);
+		ArrayList<Integer> ranked = new ArrayList<Integer>();
+		for (int c = 0; c < shares.length; c++) {
+			if (shares[c] > 0) {
+				ranked.add(c);
+			}
+		}
+		ranked.sort((a, b) -> Double.compare(shares[b], shares[a]));
+		int[] ids = new int[ranked.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = ranked.get(i);
+		}
+		return ids;
+	}
+
+	/**
+	 * Method that adds up the babies with a name by region.
+	 * @param name (name to find) and year (year or ALL_YEARS)
+	 * @return number of babies, indexed by region id
+	 */
+	public int[] getRegionCounts(String name, int year) {
+		return rollUp(getCounts(name, year));
+	}
+
+	/**
+	 * Method that returns the share of a name in every region (number of babies with the
+	 * name / total number of babies in the region).
+	 * @param name (name to find) and year (year or ALL_YEARS)
+	 * @return shares, indexed by region id
+	 */
+	public double[] getRegionShares(String name, int year) {
+		int[] counts = getRegionCounts(name, year);
+		int[] totals = rollUp(getCountyTotals(year));
+		double[] shares = new double[counts.length];
+		for (int r = 0; r < shares.length; r++) {
+			shares[r] = totals[r] == 0 ? 0 : (double) counts[r] / totals[r];
+		}
+		return shares;
+	}
+
+	/**
+	 * Helper method that adds up values indexed by county into values indexed by region.
+	 * @param byCounty (values indexed by county id)
+	 * @return values indexed by region id
+	 */
+	private int[] rollUp(int[] byCounty) {
+		int[] byRegion = new int[regions.size()];
+		for (int c = 0; c < byCounty.length; c++) {
+			byRegion[regionOf[c]] += byCounty[c];
+		}
+		return byRegion;
+	}
+
+	/**
+	 * Helper method that returns the id of a county.
+	 * @param county (county to find, compared ignoring case)
+	 * @return id or -1 if the county is not in the index
+	 */
+	public int getCountyId(String county) {
+		Integer id = countyIds.get(Name.fold(county));
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Helper method that returns the county of an id.
+	 * @param id (county id)
+	 * @return the county as it was first seen in the data
+	 */
+	public String getCounty(int id) {
+		return counties.get(id);
+	}
+
+	/**
+	 * Helper method that returns the number of counties.
+	 * @return number of counties
+	 */
+	public int countyCount() {
+		return counties.size();
+	}
+
+	/**
+	 * Helper method that returns the region of an id.
+	 * @param id (region id)
+	 * @return the name of the region
+	 */
+	public String getRegion(int id) {
+		return regions.get(id);
+	}
+
+	/**
+	 * Helper method that returns the region id of a county.
+	 * @param countyId (county id)
+	 * @return region id
+	 */
+	public int getRegionOf(int countyId) {
+		return regionOf[countyId];
+	}
+
+	/**
+	 * Helper method that returns the number of regions.
+	 * @return number of regions
+	 */
+	public int regionCount() {
+		return regions.size();
+	}
+
+	/**
+	 * Helper method that returns the number of bytes used by the matrices.
+	 * @return bytes used by the index
+	 */
+	public long matrixBytes() {
+		long bytes = 0;
+		for (int y = 0; y < years.length; y++) {
+			bytes += (long) (matrix[y].length + countyTotals[y].length) * Integer.BYTES;
+		}
+		return bytes;
+	}
+}
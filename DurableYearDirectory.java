@@ -0,0 +1,327 @@
+package project5;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class is a YearDirectory whose changes survive restarts. It keeps its state in a
+ * folder that holds a snapshot in the compact BabyNamesFile format and write-ahead logs:
+ *
+ *   snapshot-N.nybn   every change up to sequence number N
+ *   wal-M.log         the changes from sequence number M on
+ *
+ * Every add() and remove() is checked, then appended to the log before the tree is
+ * changed. A change that waits for its commit does so after releasing the lock of the
+ * directory, so that the changes of other threads can join the same group commit. When
+ * the directory is opened the newest snapshot is loaded and the logs are replayed on top of it.
+ * A checkpoint writes a new snapshot and starts a new log, so the old log can be deleted.
+ * @author Sarah Wardles
+ *
+ */
+public class DurableYearDirectory extends YearDirectory implements Closeable {
+
+	//folder that holds the snapshot and the logs
+	protected File folder;
+	//log the changes are appended to
+	protected WriteAheadLog log;
+	//sequence number of the last change in the loaded snapshot
+	protected long snapshotSequence = 0;
+	//group commit settings of the log
+	protected int batchRecords;
+	protected long batchMillis;
+	//number of changes after which a checkpoint is taken, 0 for never
+	protected int checkpointRecords;
+	//true if add() and remove() wait until their change is on disk
+	protected boolean waitForCommit;
+	//number of changes since the last checkpoint
+	private int sinceCheckpoint = 0;
+	//false while the directory is being recovered or seeded
+	private boolean logging = false;
+
+	/**
+	 * This is the constructor for the DurableYearDirectory object. It recovers the state
+	 * stored in the folder and opens a log for new changes.
+	 * @param folder (folder for the snapshot and the logs, created if it does not exist)
+	 * @param batchRecords (maximum number of changes in a group commit)
+	 * @param batchMillis (maximum time a change waits for its group commit)
+	 * @param checkpointRecords (number of changes after which a checkpoint is taken, 0 for never)
+	 * @param waitForCommit (true if every change waits until it is on disk)
+	 * @throws IOException (thrown if the folder cannot be read or written)
+	 */
+	public DurableYearDirectory(File folder, int batchRecords, long batchMillis, int checkpointRecords, boolean waitForCommit) throws IOException {
+		if (!folder.isDirectory() && !folder.mkdirs()) {
+			throw new IOException("Cannot create the folder " + folder.getAbsolutePath());
+		}
+		this.folder = folder;
+		this.batchRecords = batchRecords;
+		this.batchMillis = batchMillis;
+		this.checkpointRecords = checkpointRecords;
+		this.waitForCommit = waitForCommit;
+
+		long last = recover();
+		this.log = new WriteAheadLog(logFile(last + 1), last + 1, batchRecords, batchMillis);
+		this.logging = true;
+	}
+
+	/**
+	 * Helper method that loads the newest snapshot and replays every log after it.
+	 * @return sequence number of the last recovered change
+	 * @throws IOException (thrown if a file cannot be read)
+	 */
+	private long recover() throws IOException {
+		long[] snapshots = sequences("snapshot-", ".nybn");
+		if (snapshots.length > 0) {
+			snapshotSequence = snapshots[snapshots.length - 1];
+			try (BabyNamesFile snapshot = new BabyNamesFile(snapshotFile(snapshotSequence))) {
+				for (int year : snapshot.getYears()) {
+					allYears.add(snapshot.readYear(year));
+				}
+			}
+		}
+
+		long last = snapshotSequence;
+		for (long start : sequences("wal-", ".log")) {
+			last = Math.max(last, WriteAheadLog.replay(logFile(start), last, this));
+		}
+		return last;
+	}
+
+	/**
+	 * Method that adds every name of another directory without logging them one by one,
+	 * then takes a checkpoint. Used to fill an empty durable directory from the CSV file.
+	 * @param source (directory to copy)
+	 * @throws IOException (thrown if the checkpoint cannot be written)
+	 */
+	public synchronized void seed(YearDirectory source) throws IOException {
+		logging = false;
+		try {
+			for (YearNames year : source) {
+				ArrayList<Name> names = new ArrayList<Name>(year.size());
+				year.collect(names);
+				for (Name name : names) {
+					super.add(year.getYear(), name);
+				}
+				//keep the total of the source, which also counts rows dropped as duplicates
+				getYear(year.getYear()).totalBirths = year.totalBirths;
+			}
+		} finally {
+			logging = true;
+		}
+		checkpoint();
+	}
+
+	/**
+	 * Method that logs and then adds a Name object to the YearNames object of the specified
+	 * year. The change is checked before it is logged, so an invalid change never reaches
+	 * the log.
+	 * @param year (year the name belongs to) and name (Name object to be added)
+	 * @throws IllegalArgumentException (thrown if the year is invalid or the name is null)
+	 * @throws UncheckedIOException (thrown if the change cannot be logged)
+	 */
+	@Override
+	public void add(int year, Name name) {
+		WriteAheadLog current;
+		long sequence;
+		synchronized (this) {
+			if (!YearNames.isValidYear(year) || name == null) {
+				throw new IllegalArgumentException("A name must be added to a valid year.");
+			}
+			current = log;
+			sequence = logging ? append(WriteAheadLog.ADD, year, name) : -1;
+			super.add(year, name);
+			changed(sequence);
+		}
+		awaitCommit(current, sequence);
+	}
+
+	/**
+	 * Method that logs and then removes a Name object from the YearNames object of the specified year.
+	 * @param year (year the name belongs to) and name (Name object to be removed, its count is ignored)
+	 * @return true if the name was removed, false if the year or the name was not found
+	 * @throws UncheckedIOException (thrown if the change cannot be logged)
+	 */
+	@Override
+	public boolean remove(int year, Name name) {
+		WriteAheadLog current;
+		long sequence;
+		synchronized (this) {
+			if (!logging) {
+				return super.remove(year, name);
+			}
+			YearNames found = getYear(year);
+			if (found == null || found.get(name) == null) {
+				return false;
+			}
+			current = log;
+			sequence = append(WriteAheadLog.REMOVE, year, name);
+			super.remove(year, name);
+			changed(sequence);
+		}
+		awaitCommit(current, sequence);
+		return true;
+	}
+
+	/**
+	 * Helper method that appends a change to the log.
+	 * @return sequence number of the change
+	 */
+	private long append(byte operation, int year, Name name) {
+		try {
+			return log.append(operation, year, name);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Helper method that takes a checkpoint when enough changes were made. Called with the
+	 * lock of the directory held.
+	 * @param sequence (sequence number of the change, -1 if it was not logged)
+	 */
+	private void changed(long sequence) {
+		if (sequence < 0) {
+			return;
+		}
+		sinceCheckpoint++;
+		if (checkpointRecords > 0 && sinceCheckpoint >= checkpointRecords) {
+			try {
+				checkpoint();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Helper method that waits for the commit of a change if asked to. Called without the
+	 * lock of the directory, so other threads can log changes into the same group commit.
+	 * A checkpoint taken in between flushed the log the change went to before closing it.
+	 * @param current (log the change was appended to) and sequence (sequence number of the change, -1 if it was not logged)
+	 */
+	private void awaitCommit(WriteAheadLog current, long sequence) {
+		if (sequence < 0 || !waitForCommit) {
+			return;
+		}
+		try {
+			current.awaitDurable(sequence);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Method that writes a snapshot of the whole directory and starts a new log. The
+	 * snapshot is written to a temporary file and renamed, so a crash leaves either the
+	 * old or the new snapshot; older snapshots and logs are deleted afterwards.
+	 * @throws IOException (thrown if the snapshot cannot be written)
+	 */
+	public synchronized void checkpoint() throws IOException {
+		if (log != null) {
+			log.flush();
+		}
+		long last = log == null ? snapshotSequence : log.nextSequence() - 1;
+
+		File temporary = new File(folder, "snapshot-" + last + ".tmp");
+		BabyNamesFile.write(this, temporary);
+		Files.move(temporary.toPath(), snapshotFile(last).toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		syncFolder();
+		snapshotSequence = last;
+
+		if (log != null) {
+			log.close();
+			log = new WriteAheadLog(logFile(last + 1), last + 1, batchRecords, batchMillis);
+		}
+		for (long sequence : sequences("snapshot-", ".nybn")) {
+			if (sequence < last) {
+				Files.deleteIfExists(snapshotFile(sequence).toPath());
+			}
+		}
+		for (long start : sequences("wal-", ".log")) {
+			if (start <= last) {
+				Files.deleteIfExists(logFile(start).toPath());
+			}
+		}
+		sinceCheckpoint = 0;
+	}
+
+	/**
+	 * Method that takes a checkpoint and closes the log.
+	 * @throws IOException (thrown if the checkpoint or closing the log failed)
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (log != null) {
+			checkpoint();
+			log.close();
+			log = null;
+		}
+	}
+
+	/**
+	 * Helper method that returns the log, for reporting its statistics.
+	 * @return the open log
+	 */
+	public WriteAheadLog getLog() {
+		return log;
+	}
+
+	/**
+	 * Helper method that fsyncs the folder so a rename in it is on disk.
+	 */
+	private void syncFolder() {
+		try (FileChannel channel = FileChannel.open(folder.toPath(), StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			//not every platform can open a folder, the rename is still atomic
+		}
+	}
+
+	/**
+	 * Helper method that returns the file of the snapshot with the given sequence number.
+	 */
+	private File snapshotFile(long sequence) {
+		return new File(folder, "snapshot-" + sequence + ".nybn");
+	}
+
+	/**
+	 * Helper method that returns the file of the log that starts at the given sequence number.
+	 */
+	private File logFile(long start) {
+		return new File(folder, "wal-" + start + ".log");
+	}
+
+	/**
+	 * Helper method that finds the sequence numbers in the names of the files of the folder
+	 * that have the given prefix and suffix.
+	 * @return sorted sequence numbers
+	 */
+	private long[] sequences(String prefix, String suffix) {
+		ArrayList<Long> found = new ArrayList<Long>();
+		String[] files = folder.list();
+		if (files != null) {
+			for (String file : files) {
+				if (file.startsWith(prefix) && file.endsWith(suffix)) {
+					try {
+						found.add(Long.parseLong(file.substring(prefix.length(), file.length() - suffix.length())));
+					} catch (NumberFormatException e) {
+						continue;
+					}
+				}
+			}
+		}
+		long[] sequences = new long[found.size()];
+		for (int i = 0; i < sequences.length; i++) {
+			sequences[i] = found.get(i);
+		}
+		Arrays.sort(sequences);
+		return sequences;
+	}
+}
@@ -0,0 +1,135 @@
+package project5;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts latencies in buckets that grow with the latency: every power of two
+ * is split into 16 buckets, so a percentile is off by at most 1/16 (about 6%) whatever
+ * the latency is. Any number of threads can record into one histogram at the same time.
+ * @author Sarah Wardles
+ *
+ */
+public class LatencyHistogram {
+
+	//number of buckets per power of two
+	private static final int SUB_BUCKETS = 16;
+
+	//count of every bucket
+	private AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+	//largest latency recorded, for the max that a bucket would round
+	private volatile long max = 0;
+
+	/**
+	 * Method that records one latency.
+	 * @param nanos (latency in nanoseconds, values below 0 are counted as 0)
+	 */
+	public void record(long nanos) {
+		nanos = Math.max(0, nanos);
+		counts.incrementAndGet(index(nanos));
+		if (nanos > max) {
+			synchronized (this) {
+				max = Math.max(max, nanos);
+			}
+		}
+	}
+
+	/**
+	 * Method that returns the number of latencies recorded.
+	 * @return number of latencies
+	 */
+	public long count() {
+		long total = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			total += counts.get(i);
+		}
+		return total;
+	}
+
+	/**
+	 * Method that returns a percentile of the recorded latencies: the highest latency of the
+	 * bucket that holds it.
+	 * @param percent (percentile between 0 and 100, for example 99.9)
+	 * @return latency in nanoseconds, 0 if nothing was recorded
+	 */
+	public long percentile(double percent) {
+		long total = count();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percent / 100));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(max, lowest(i + 1) - 1);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Method that returns the largest latency recorded.
+	 * @return latency in nanoseconds
+	 */
+	public long max() {
+		return max;
+	}
+
+	/**
+	 * Method that prints the non-empty buckets as a histogram with one bar for every
+	 * percent of the latencies, merged into at most the given number of lines.
+	 * @param lines (largest number of lines to print)
+	 */
+	public void print(int lines) {
+		long total = count();
+		int first = -1;
+		int last = -1;
+		for (int i = 0; i < counts.length(); i++) {
+			if (counts.get(i) > 0) {
+				first = first < 0 ? i : first;
+				last = i;
+			}
+		}
+		if (total == 0) {
+			return;
+		}
+		int step = Math.max(1, (last - first + lines) / lines);
+		for (int i = first; i <= last; i += step) {
+			long count = 0;
+			for (int j = i; j < i + step && j <= last; j++) {
+				count += counts.get(j);
+			}
+			StringBuilder bar = new StringBuilder();
+			for (int j = 0; j < count * 100 / total; j++) {
+				bar.append('|');
+			}
+			System.out.printf("%10.3f - %10.3f ms %9d %s%n", lowest(i) / 1e6, lowest(i + step) / 1e6, count, bar);
+		}
+	}
+
+	/**
+	 * Helper method that returns the bucket of a latency.
+	 */
+	private static int index(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) ((nanos >>> (magnitude - 4)) & (SUB_BUCKETS - 1));
+		return (magnitude - 3) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Helper method that returns the lowest latency of a bucket.
+	 */
+	private static long lowest(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int magnitude = index / SUB_BUCKETS + 3;
+		if (magnitude >= 63) {
+			return Long.MAX_VALUE;
+		}
+		return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (magnitude - 4);
+	}
+}
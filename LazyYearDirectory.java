@@ -0,0 +1,193 @@
+package project5;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a YearDirectory that is backed by a compact BabyNamesFile. A year is
+ * only decoded the first time a query asks for it, and at most maxCachedYears decoded
+ * years are kept in memory; the least recently used year is dropped when the cache is full.
+ *
+ * A query reads every year in order, which would empty a smaller LRU cache before any of
+ * it is reused and decode every year on every query. Such scans (yearAt() and the
+ * iterator) therefore only fill free slots: a year that is not cached is decoded for the
+ * scan but does not push another year out, so the cached years stay decoded.
+ * The directory is read only. Bloom filters built on it only keep the filter of the whole
+ * directory, because the filters of a year are dropped with the decoded year.
+ * @author Sarah Wardles
+ *
+ */
+public class LazyYearDirectory extends YearDirectory {
+
+	//the file the years are decoded from, and its years
+	protected BabyNamesFile file;
+	protected int[] years;
+	//the years that are currently decoded, in least recently used order
+	protected LinkedHashMap<Integer, YearNames> cache;
+	//maximum number of decoded years kept in memory
+	protected int maxCachedYears;
+
+	/**
+	 * This is the constructor for a LazyYearDirectory object whose cache can hold every
+	 * year of the file, so every year is decoded at most once.
+	 * @param file (open compact file)
+	 */
+	public LazyYearDirectory(BabyNamesFile file) {
+		this(file, Math.max(1, file.getYears().length));
+	}
+
+	/**
+	 * This is the constructor for the LazyYearDirectory object.
+	 * @param file (open compact file) and maxCachedYears (must be a positive integer)
+	 * @throws IllegalArgumentException (thrown if maxCachedYears is not positive)
+	 */
+	public LazyYearDirectory(BabyNamesFile file, int maxCachedYears) {
+		if (maxCachedYears < 1) {
+			throw new IllegalArgumentException("The program must take a positive cache size as a parameter.");
+		}
+		this.file = file;
+		this.years = file.getYears();
+		this.maxCachedYears = maxCachedYears;
+		this.cache = new LinkedHashMap<Integer, YearNames>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, YearNames> eldest) {
+				return size() > LazyYearDirectory.this.maxCachedYears;
+			}
+		};
+	}
+
+	/**
+	 * The directory is read only, so names cannot be added.
+	 * @throws UnsupportedOperationException (always)
+	 */
+	@Override
+	public void add(int year, Name name) {
+		throw new UnsupportedOperationException("A lazily loaded directory is read only.");
+	}
+
+	/**
+	 * The directory is read only, so names cannot be removed.
+	 * @throws UnsupportedOperationException (always)
+	 */
+	@Override
+	public boolean remove(int year, Name name) {
+		throw new UnsupportedOperationException("A lazily loaded directory is read only.");
+	}
+
+	/**
+	 * Method that returns the YearNames object for the specified year, decoding it from
+	 * the file if it is not in the cache.
+	 * @param year (year to find)
+	 * @return the YearNames object or null if the year is not in the file
+	 * @throws UncheckedIOException (thrown if the block of the year cannot be read)
+	 */
+	@Override
+	public synchronized YearNames getYear(int year) {
+		YearNames found = cache.get(year);
+		if (found == null) {
+			found = decode(year);
+			if (found != null) {
+				cache.put(year, found);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Helper method that returns a year for a scan over every year: from the cache if it
+	 * is there, otherwise decoded and only cached if the cache has a free slot.
+	 * @param year (year to find)
+	 * @return the YearNames object or null if the year is not in the file
+	 */
+	private synchronized YearNames scanYear(int year) {
+		YearNames found = cache.get(year);
+		if (found == null) {
+			found = decode(year);
+			if (found != null && cache.size() < maxCachedYears) {
+				cache.put(year, found);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Helper method that decodes a year from the file.
+	 * @throws UncheckedIOException (thrown if the block of the year cannot be read)
+	 */
+	private YearNames decode(int year) {
+		try {
+			return file.readYear(year);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Method that returns all of the years in the file, without decoding any of them.
+	 * @return array of years
+	 */
+	@Override
+	public int[] getYears() {
+		return years.clone();
+	}
+
+	/**
+	 * Helper method that returns the number of years in the file.
+	 * @return number of years
+	 */
+	@Override
+	public int size() {
+		return years.length;
+	}
+
+	/**
+	 * Helper method that returns the YearNames object at a position of getYears(),
+	 * decoding it if it is not in the cache. It is called by scans over every year, so
+	 * it does not push cached years out.
+	 * @param index (position of the year)
+	 * @return the YearNames object
+	 */
+	@Override
+	protected YearNames yearAt(int index) {
+		return scanYear(years[index]);
+	}
+
+	/**
+	 * Method that returns an iterator over the YearNames objects of every year in file
+	 * order. Like yearAt() it does not push cached years out.
+	 * @return iterator over all the years
+	 */
+	@Override
+	public Iterator<YearNames> iterator() {
+		return new Iterator<YearNames>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < years.length;
+			}
+
+			@Override
+			public YearNames next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return yearAt(next++);
+			}
+		};
+	}
+
+	/**
+	 * Helper method that returns the number of years that are currently decoded.
+	 * @return number of cached years
+	 */
+	public synchronized int cachedYears() {
+		return cache.size();
+	}
+}
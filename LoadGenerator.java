@@ -0,0 +1,308 @@
+package project5;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class replays a query log recorded with the --record option of NYSBabyNames
+ * against the query layer of the program (YearDirectory.fractions(), which answers the
+ * queries of the prompt), in this process:
+ *
+ *   java project5.LoadGenerator <data file> <query log> [options]
+ *
+ *   --rate <n>          queries started per second (default 500)
+ *   --clients <n>       threads that answer the queries (default 8)
+ *   --seconds <n>       length of the measured run (default 10)
+ *   --warmup <n>        seconds replayed before the measured run (default 3)
+ *   --engine <engine>   engine of a CSV data file: avl, arena or btree
+ *   --cache <n>         decoded years kept for a compact data file (default every year)
+ *   --bloom <rate>      build bloom filters like the program does
+ *   --save <file>       write the results to a file
+ *   --compare <file>    compare the results with a file written by --save
+ *   --threshold <n>     percent a result may be worse before it is a regression (default 10)
+ *
+ * The load is open-loop: queries are started on a fixed schedule whether or not the earlier
+ * ones have finished, and the latency of a query is measured from the time it was
+ * scheduled, so waiting for a free client is part of it. The log is replayed in order and
+ * starts over when it runs out.
+ *
+ * To compare two builds, run the first with --save and the second with --compare, with
+ * the same data, log and options. The exit code is 2 if a result got worse than the
+ * threshold allows.
+ * @author Sarah Wardles
+ *
+ */
+public class LoadGenerator {
+
+	//results saved and compared, with true if a higher value is better
+	private static final String[] METRICS = {"throughput", "p50_ms", "p99_ms", "p99.9_ms", "max_ms"};
+	private static final boolean[] HIGHER_IS_BETTER = {true, false, false, false, false};
+
+	//the query layer and the queries to replay
+	protected YearDirectory directory;
+	protected ArrayList<String[]> queries;
+	//how hard to replay them
+	protected double rate;
+	protected int clients;
+
+	//key and fractions of every client, reused by all of its queries
+	private ThreadLocal<NameKey> keys = ThreadLocal.withInitial(NameKey::new);
+	private ThreadLocal<double[]> buffers = new ThreadLocal<double[]>();
+
+	//results of the last run
+	protected LatencyHistogram latencies;
+	protected AtomicLong hits = new AtomicLong();
+	protected AtomicLong misses = new AtomicLong();
+	protected AtomicLong errors = new AtomicLong();
+	protected long started;
+	protected long elapsedNanos;
+
+	/**
+	 * This is the constructor for the LoadGenerator object.
+	 * @param directory (directory the queries run against) and queries (queries as {name, county} pairs)
+	 * @param rate (queries started per second) and clients (number of threads answering them)
+	 * @throws IllegalArgumentException (thrown if there are no queries or the rate or clients are not positive)
+	 */
+	public LoadGenerator(YearDirectory directory, ArrayList<String[]> queries, double rate, int clients) {
+		if (queries.isEmpty() || !(rate > 0) || clients < 1) {
+			throw new IllegalArgumentException("The load generator needs queries, a positive rate and at least one client.");
+		}
+		this.directory = directory;
+		this.queries = queries;
+		this.rate = rate;
+		this.clients = clients;
+	}
+
+	/**
+	 * Method that replays the log for a number of seconds and keeps the results.
+	 * @param seconds (length of the run)
+	 * @throws InterruptedException (thrown if the thread is interrupted while waiting for the clients)
+	 */
+	public void run(double seconds) throws InterruptedException {
+		latencies = new LatencyHistogram();
+		hits.set(0);
+		misses.set(0);
+		errors.set(0);
+		started = 0;
+		ExecutorService pool = Executors.newFixedThreadPool(clients);
+		long interval = (long) (1e9 / rate);
+		long start = System.nanoTime();
+		long end = start + (long) (seconds * 1e9);
+		int next = 0;
+		for (long scheduled = start; scheduled < end; scheduled += interval) {
+			long wait = scheduled - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			final long intended = scheduled;
+			final String[] query = queries.get(next);
+			next = (next + 1) % queries.size();
+			started++;
+			pool.execute(() -> {
+				try {
+					if (answer(query[0], query[1])) {
+						hits.incrementAndGet();
+					} else {
+						misses.incrementAndGet();
+					}
+				} catch (RuntimeException e) {
+					errors.incrementAndGet();
+				}
+				latencies.record(System.nanoTime() - intended);
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.DAYS);
+		elapsedNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Helper method that answers a query with the key and the buffer of the calling client.
+	 * @param name (name of the query) and county (county of the query, or ALL)
+	 * @return true if the name/county is in the dataset
+	 */
+	private boolean answer(String name, String county) {
+		NameKey key = keys.get().set(name, county.equalsIgnoreCase("all") ? null : county);
+		double[] fractions = buffers.get();
+		if (fractions == null || fractions.length < directory.size()) {
+			fractions = new double[directory.size()];
+			buffers.set(fractions);
+		}
+		return directory.fractions(key, fractions);
+	}
+
+	/**
+	 * Method that returns the results of the last run under the names used by --save.
+	 * @return the results
+	 */
+	public Properties results() {
+		Properties results = new Properties();
+		results.setProperty("rate", String.valueOf(rate));
+		results.setProperty("clients", String.valueOf(clients));
+		results.setProperty("queries", String.valueOf(latencies.count()));
+		results.setProperty("hits", String.valueOf(hits.get()));
+		results.setProperty("misses", String.valueOf(misses.get()));
+		results.setProperty("errors", String.valueOf(errors.get()));
+		results.setProperty("throughput", String.valueOf(latencies.count() * 1e9 / elapsedNanos));
+		results.setProperty("p50_ms", String.valueOf(latencies.percentile(50) / 1e6));
+		results.setProperty("p99_ms", String.valueOf(latencies.percentile(99) / 1e6));
+		results.setProperty("p99.9_ms", String.valueOf(latencies.percentile(99.9) / 1e6));
+		results.setProperty("max_ms", String.valueOf(latencies.max() / 1e6));
+		return results;
+	}
+
+	/**
+	 * Method that prints the results of the last run and the latency histogram.
+	 */
+	public void printResults() {
+		Properties results = results();
+		System.out.printf("%d queries in %.1f s: %.1f queries/s for a target of %.1f with %d clients%n",
+				latencies.count(), elapsedNanos / 1e9, Double.parseDouble(results.getProperty("throughput")), rate, clients);
+		System.out.printf("%d hits, %d misses, %d errors%n", hits.get(), misses.get(), errors.get());
+		System.out.printf("latency ms: p50 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n", latencies.percentile(50) / 1e6,
+				latencies.percentile(99) / 1e6, latencies.percentile(99.9) / 1e6, latencies.max() / 1e6);
+		System.out.println();
+		latencies.print(20);
+	}
+
+	/**
+	 * Method that compares the results of the last run with saved ones.
+	 * @param baseline (results saved by an earlier run) and threshold (percent a result may be worse)
+	 * @return true if a result is worse than the threshold allows
+	 */
+	public boolean compare(Properties baseline, double threshold) {
+		Properties results = results();
+		for (String setting : new String[] {"rate", "clients"}) {
+			if (!results.getProperty(setting).equals(baseline.getProperty(setting))) {
+				System.out.println("Warning: the baseline was run with " + setting + " " + baseline.getProperty(setting) + ".");
+			}
+		}
+		boolean regression = false;
+		System.out.println("metric          baseline     this run    change");
+		for (int i = 0; i < METRICS.length; i++) {
+			double before = Double.parseDouble(baseline.getProperty(METRICS[i], "0"));
+			double after = Double.parseDouble(results.getProperty(METRICS[i]));
+			double change = before == 0 ? 0 : (after - before) * 100 / before;
+			boolean worse = HIGHER_IS_BETTER[i] ? change < -threshold : change > threshold;
+			regression |= worse;
+			System.out.printf("%-12s  %10.3f  %11.3f  %+7.1f%%%s%n", METRICS[i], before, after, change, worse ? "  REGRESSION" : "");
+		}
+		return regression;
+	}
+
+	/**
+	 * Main method that loads the data and the log, replays the log and reports the results.
+	 * @param args
+	 *   the data file, the query log and the options
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage Error: the program expects a data file and a query log as arguments.");
+			System.exit(1);
+		}
+		File file = new File(args[0]);
+		File log = new File(args[1]);
+		double rate = 500;
+		int clients = 8;
+		double seconds = 10;
+		double warmup = 3;
+		String engine = "avl";
+		//0 caches every year of a compact file
+		int cacheSize = 0;
+		double bloomRate = 0;
+		File saveTo = null;
+		File compareWith = null;
+		double threshold = 10;
+		try {
+			for (int i = 2; i < args.length; i++) {
+				if (args[i].equals("--rate") && i + 1 < args.length) {
+					rate = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("--clients") && i + 1 < args.length) {
+					clients = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("--seconds") && i + 1 < args.length) {
+					seconds = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("--warmup") && i + 1 < args.length) {
+					warmup = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("--engine") && i + 1 < args.length) {
+					engine = args[++i];
+				} else if (args[i].equals("--cache") && i + 1 < args.length) {
+					cacheSize = Integer.parseInt(args[++i]);
+					if (cacheSize < 1) {
+						System.err.println("Usage Error: the cache size must be a positive integer.");
+						System.exit(1);
+					}
+				} else if (args[i].equals("--bloom") && i + 1 < args.length) {
+					bloomRate = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("--save") && i + 1 < args.length) {
+					saveTo = new File(args[++i]);
+				} else if (args[i].equals("--compare") && i + 1 < args.length) {
+					compareWith = new File(args[++i]);
+				} else if (args[i].equals("--threshold") && i + 1 < args.length) {
+					threshold = Double.parseDouble(args[++i]);
+				} else {
+					System.err.println("Usage Error: unknown option " + args[i]);
+					System.exit(1);
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("Usage Error: an option expects a number.");
+			System.exit(1);
+		}
+
+		boolean regression = false;
+		try {
+			YearDirectory directory;
+			if (BabyNamesFile.isCompactFile(file)) {
+				BabyNamesFile compact = new BabyNamesFile(file);
+				directory = cacheSize > 0 ? new LazyYearDirectory(compact, cacheSize) : new LazyYearDirectory(compact);
+			} else {
+				directory = NYSBabyNames.newDirectory(engine);
+				NYSBabyNames.loadCSV(file, directory, false);
+			}
+			if (bloomRate > 0) {
+				directory.buildFilters(bloomRate);
+			}
+			LoadGenerator generator = new LoadGenerator(directory, QueryLog.read(log), rate, clients);
+			if (warmup > 0) {
+				generator.run(warmup);
+			}
+			generator.run(seconds);
+			generator.printResults();
+			if (saveTo != null) {
+				try (OutputStream out = new FileOutputStream(saveTo)) {
+					generator.results().store(out, "LoadGenerator results");
+				}
+			}
+			if (compareWith != null) {
+				Properties baseline = new Properties();
+				try (InputStream in = new FileInputStream(compareWith)) {
+					baseline.load(in);
+				}
+				System.out.println();
+				regression = generator.compare(baseline, threshold);
+			}
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		} catch (IllegalArgumentException e) {
+			System.err.println("Usage Error: " + e.getMessage());
+			System.exit(1);
+		} catch (InterruptedException e) {
+			System.exit(1);
+		}
+		if (regression) {
+			System.exit(2);
+		}
+	}
+}
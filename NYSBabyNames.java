@@ -2,7 +2,10 @@ package project5;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 
@@ -14,6 +17,9 @@ import java.util.Scanner;
  */
 public class NYSBabyNames {
 
+	//probability that an estimate of the approximate mode is off by more than its error bound
+	public static final double APPROX_DELTA = 0.01;
+
 	/**
 	 * Main method that opens and reads data 
 	 * @author sarahwardles
@@ -42,20 +48,612 @@ public class NYSBabyNames {
 			System.exit(1);
 		}
 		
-		//create new scanner
-		Scanner scanner = null;
+		//OPTIONS PORTION
+		//optional arguments after the file name
+		File convertTo = null;
+		//0 caches every year of a compact file
+		int cacheSize = 0;
+		String engine = "avl";
+		File walFolder = null;
+		boolean buildCounties = false;
+		File regionsFile = null;
+		String queryName = null;
+		String queryCounty = "all";
+		double bloomRate = 0;
+		double approxError = 0;
+		int shards = 0;
+		boolean pipelineReport = false;
+		File recordTo = null;
+		File exportTo = null;
+		boolean binaryExport = false;
+		Query exportFilter = null;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--convert") && i + 1 < args.length) {
+				convertTo = new File(args[++i]);
+			} else if (args[i].equals("--export") && i + 1 < args.length) {
+				exportTo = new File(args[++i]);
+			} else if (args[i].equals("--format") && i + 1 < args.length) {
+				String format = args[++i];
+				if (!(format.equals("csv") || format.equals("binary"))) {
+					System.err.println("Usage Error: the format must be csv or binary.");
+					System.exit(1);
+				}
+				binaryExport = format.equals("binary");
+			} else if (args[i].equals("--where") && i + 1 < args.length) {
+				try {
+					exportFilter = new Query(args[++i]);
+				} catch (IllegalArgumentException e) {
+					System.err.println("Usage Error: " + e.getMessage());
+					System.exit(1);
+				}
+			} else if (args[i].equals("--cache") && i + 1 < args.length) {
+				try {
+					cacheSize = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					cacheSize = 0;
+				}
+				if (cacheSize < 1) {
+					System.err.println("Usage Error: the cache size must be a positive integer.");
+					System.exit(1);
+				}
+			} else if (args[i].equals("--engine") && i + 1 < args.length) {
+				engine = args[++i];
+				if (!(engine.equals("avl") || engine.equals("arena") || engine.equals("btree"))) {
+					System.err.println("Usage Error: the engine must be avl, arena or btree.");
+					System.exit(1);
+				}
+			} else if (args[i].equals("--query") && i + 1 < args.length) {
+				queryName = args[++i];
+			} else if (args[i].equals("--county") && i + 1 < args.length) {
+				queryCounty = args[++i];
+			} else if (args[i].equals("--bloom") && i + 1 < args.length) {
+				try {
+					bloomRate = Double.parseDouble(args[++i]);
+				} catch (NumberFormatException e) {
+					bloomRate = 0;
+				}
+				if (!(bloomRate > 0 && bloomRate < 1)) {
+					System.err.println("Usage Error: the false positive rate must be between 0 and 1.");
+					System.exit(1);
+				}
+			} else if (args[i].equals("--approx") && i + 1 < args.length) {
+				try {
+					approxError = Double.parseDouble(args[++i]);
+				} catch (NumberFormatException e) {
+					approxError = 0;
+				}
+				if (!(approxError > 0 && approxError < 1)) {
+					System.err.println("Usage Error: the error bound must be between 0 and 1.");
+					System.exit(1);
+				}
+			} else if (args[i].equals("--shards") && i + 1 < args.length) {
+				try {
+					shards = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					shards = 0;
+				}
+				if (shards < 1) {
+					System.err.println("Usage Error: the number of shards must be a positive integer.");
+					System.exit(1);
+				}
+			} else if (args[i].equals("--record") && i + 1 < args.length) {
+				recordTo = new File(args[++i]);
+			} else if (args[i].equals("--pipeline")) {
+				pipelineReport = true;
+			} else if (args[i].equals("--counties")) {
+				buildCounties = true;
+			} else if (args[i].equals("--regions") && i + 1 < args.length) {
+				buildCounties = true;
+				regionsFile = new File(args[++i]);
+			} else if (args[i].equals("--wal") && i + 1 < args.length) {
+				walFolder = new File(args[++i]);
+			} else {
+				System.err.println("Usage Error: unknown option " + args[i]);
+				System.exit(1);
+			}
+		}
+		
+		//answer a single query while reading the file, without building any tree
+		if (queryName != null) {
+			if (BabyNamesFile.isCompactFile(file)) {
+				System.err.println("Usage Error: --query needs a CSV file.");
+				System.exit(1);
+			}
+			try {
+				StreamingQuery query = new StreamingQuery(queryName, queryCounty);
+				loadCSV(file, query, pipelineReport);
+				query.printHistogram();
+			} catch (IOException e) {
+				System.err.println("Error: there is a problem with the file at " + file.getAbsolutePath());
+				System.exit(1);
+			}
+			return;
+		}
 		
-		try {
-			scanner = new Scanner(file);
-		} 
-		//if not throw an error
-		catch (FileNotFoundException e) {
-			System.err.println("Error: there is a problem with the file at " + file.getAbsolutePath());
+		//spread the years over worker processes and answer the queries through them
+		if (shards > 0) {
+			if (BabyNamesFile.isCompactFile(file) || convertTo != null || walFolder != null || buildCounties
+					|| bloomRate > 0 || approxError > 0 || exportTo != null) {
+				System.err.println("Usage Error: --shards needs a CSV file and cannot be used with other options.");
+				System.exit(1);
+			}
+			try (ShardCoordinator coordinator = new ShardCoordinator()) {
+				for (int i = 0; i < shards; i++) {
+					coordinator.startLocalWorker();
+				}
+				try {
+					loadCSV(file, coordinator, pipelineReport);
+				} catch (IOException e) {
+					System.err.println("Error: there is a problem with the file at " + file.getAbsolutePath());
+					System.exit(1);
+				}
+				coordinator.rebalance();
+				shardedLoop(coordinator);
+			} catch (IOException | UncheckedIOException e) {
+				System.err.println("Error: a worker failed: " + e.getMessage());
+				System.exit(1);
+			}
+			return;
+		}
+		
+		//the sketches of the approximate mode hold no rows to convert, index or log
+		if (approxError > 0 && (convertTo != null || walFolder != null || buildCounties || bloomRate > 0
+				|| exportTo != null || BabyNamesFile.isCompactFile(file))) {
+			System.err.println("Usage Error: --approx needs a CSV file and cannot be used with --convert, --export, --wal, --counties or --bloom.");
 			System.exit(1);
 		}
 		
-		ArrayList<YearNames> allYears = new ArrayList<YearNames>();
+		YearDirectory allYears = null;
+		DurableYearDirectory durable = null;
+		
+		//a durable directory that already holds data is used instead of the file; a correction
+		//waits for the commit of its batch, so it is on disk before it is reported as made
+		if (walFolder != null) {
+			try {
+				durable = new DurableYearDirectory(walFolder, 1024, 10, 100000, true);
+			} catch (IOException e) {
+				System.err.println("Error: cannot recover the data in " + walFolder.getAbsolutePath());
+				System.exit(1);
+			}
+		}
+		
+		if (durable != null && durable.size() > 0) {
+			allYears = durable;
+		} else if (BabyNamesFile.isCompactFile(file)) {
+			//compact files are decoded one year at a time as queries need them
+			try {
+				BabyNamesFile compact = new BabyNamesFile(file);
+				allYears = cacheSize > 0 ? new LazyYearDirectory(compact, cacheSize) : new LazyYearDirectory(compact);
+			} catch (IOException e) {
+				System.err.println("Error: there is a problem with the file at " + file.getAbsolutePath());
+				System.exit(1);
+			}
+		} else {
+			allYears = approxError > 0 ? new ApproxYearDirectory(approxError, APPROX_DELTA) : newDirectory(engine);
+			
+			try {
+				loadCSV(file, allYears, pipelineReport);
+			}
+			//if not throw an error
+			catch (IOException e) {
+				System.err.println("Error: there is a problem with the file at " + file.getAbsolutePath());
+				System.exit(1);
+			}
+			if (approxError > 0) {
+				System.err.printf("Count-Min sketches: %.1f KB for %d years (error bound %g of the births)\n",
+						((ApproxYearDirectory) allYears).sketchBytes() / 1024.0, allYears.size(), approxError);
+			}
+		}
+		
+		//fill an empty durable directory with the data of the file
+		if (durable != null && allYears != durable) {
+			try {
+				durable.seed(allYears);
+			} catch (IOException e) {
+				System.err.println("Error: cannot write the data to " + walFolder.getAbsolutePath());
+				System.exit(1);
+			}
+			allYears = durable;
+		}
 		
+		//write the compact file and stop if asked to convert
+		if (convertTo != null) {
+			try {
+				BabyNamesFile.write(allYears, convertTo);
+			} catch (IOException e) {
+				System.err.println("Error: cannot write the file at " + convertTo.getAbsolutePath());
+				System.exit(1);
+			}
+			System.out.println("Wrote " + allYears.size() + " years to " + convertTo.getAbsolutePath());
+			return;
+		}
+
+		//write the rows sorted by name, county, gender and year and stop if asked to export
+		if (exportTo != null) {
+			try {
+				SortedExporter exporter = new SortedExporter(allYears, exportFilter, binaryExport);
+				exporter.export(exportTo);
+				exporter.printReport();
+			} catch (IOException | UncheckedIOException e) {
+				System.err.println("Error: cannot write the file at " + exportTo.getAbsolutePath());
+				System.exit(1);
+			}
+			return;
+		}
+
+		//precompute the county dimension if asked to
+		CountyIndex counties = null;
+		if (buildCounties) {
+			String defaultRegion = "Upstate";
+			Map<String, String> regions = CountyIndex.newYorkRegions();
+			if (regionsFile != null) {
+				try {
+					regions = CountyIndex.readRegions(regionsFile);
+				} catch (FileNotFoundException e) {
+					System.err.println("Error: there is a problem with the file at " + regionsFile.getAbsolutePath());
+					System.exit(1);
+				}
+				defaultRegion = "Other";
+			}
+			counties = new CountyIndex(allYears, regions, defaultRegion);
+		}
+
+		//build the bloom filters that reject names that are not in the dataset
+		if (bloomRate > 0) {
+			long bytes = allYears.buildFilters(bloomRate);
+			System.err.printf("Bloom filters: %.1f KB for %d years (false positive rate %g)\n",
+					bytes / 1024.0, allYears.size(), bloomRate);
+		}
+
+		//record the queries for LoadGenerator if asked to
+		QueryLog queryLog = null;
+		if (recordTo != null) {
+			try {
+				queryLog = new QueryLog(recordTo);
+			} catch (FileNotFoundException e) {
+				System.err.println("Error: cannot write the file at " + recordTo.getAbsolutePath());
+				System.exit(1);
+			}
+		}
+
+		//USER INERACTIVE PORTION
+		//useful varaibles for interaction
+		Scanner userin = new Scanner(System.in);
+		String inputName= "";
+		String inputCounty = "";
+		boolean ispresent = false;
+		//built the first time a similarity search is typed
+		SimilarityIndex similarity = null;
+		//key and fractions of the query, reused by every query
+		NameKey key = new NameKey();
+		double[] fractions = new double[allYears.size()];
+		
+		while (!(inputName.equalsIgnoreCase("q"))) {
+			ispresent = false;
+			System.out.println("");
+			System.out.print("Enter a name [q to exit]: ");
+			inputName= userin.nextLine();
+			//check for keyword q(quit)
+			if (inputName.equalsIgnoreCase("q")) {
+				break;
+			}
+			//check for a correction to the dataset
+			if (inputName.startsWith("+") || inputName.startsWith("-")) {
+				correct(allYears, inputName);
+				similarity = null;
+				continue;
+			}
+			//check for a similarity search
+			if (inputName.toLowerCase().startsWith("similar ")) {
+				if (allYears instanceof ApproxYearDirectory) {
+					System.out.println("Error: similarity searches need the rows, which the approximate mode does not keep.");
+					continue;
+				}
+				if (similarity == null) {
+					long start = System.nanoTime();
+					similarity = new SimilarityIndex(allYears);
+					System.out.printf("Indexed %d names over %d years in %.0f ms\n", similarity.size(),
+							similarity.getYears().length, (System.nanoTime() - start) / 1e6);
+				}
+				similarNames(similarity, inputName);
+				continue;
+			}
+			//check for a query in the query language
+			if (inputName.toLowerCase().startsWith("query ") || inputName.toLowerCase().startsWith("explain ")) {
+				runQuery(allYears, inputName);
+				continue;
+			}
+
+			System.out.println("");
+			System.out.print("Please enter a county (ALL, for search in all counties): ");
+			inputCounty = userin.nextLine();
+			
+			//check for the county dimension keywords
+			if (inputCounty.equalsIgnoreCase("rank") || inputCounty.equalsIgnoreCase("regions")) {
+				if (counties == null) {
+					System.out.println("Error: start the program with --counties to rank counties.");
+				} else if (inputCounty.equalsIgnoreCase("rank")) {
+					countyRanking(counties, inputName);
+				} else {
+					regionRollup(counties, inputName);
+				}
+				continue;
+			}
+			if (queryLog != null) {
+				queryLog.record(inputName, inputCounty);
+			}
+			
+			//check for all keyword
+			//check to find requested name/county
+			//the fractions of every year are computed once, for the check and the histogram
+			key.set(inputName, inputCounty.equalsIgnoreCase("all") ? null : inputCounty);
+			if (fractions.length < allYears.size()) {
+				fractions = new double[allYears.size()];
+			}
+			ispresent = allYears.fractions(key, fractions);
+			
+			//if actually found the input
+			if (ispresent) {
+				System.out.println("\n");
+				int[] years = allYears.getYears();
+				for (int i = 0; i < years.length; i++) {
+					//print out histogram for all or for one county
+					printBar(String.valueOf(years[i]), fractions[i]);
+				}
+				if (allYears instanceof ApproxYearDirectory) {
+					approximationNote(allYears, inputCounty);
+				}
+			} else if (allYears instanceof ApproxYearDirectory) {
+				//a rare name cannot be told apart from the error of the sketches
+				System.out.println("No such name/county in the dataset, or too rare to tell apart from the error of the estimates.");
+			} else {
+				//if havent found inputted name/county pair
+				System.out.println("No such name/county in the dataset.");
+			}
+			
+		}
+		System.out.println("");
+		userin.close();
+		if (queryLog != null) {
+			queryLog.close();
+		}
+		
+		//write a checkpoint so the next start does not replay the log
+		if (durable != null) {
+			try {
+				durable.close();
+			} catch (IOException e) {
+				System.err.println("Error: cannot write the data to " + walFolder.getAbsolutePath());
+				System.exit(1);
+			}
+		}
+	}
+	
+	/**
+	 * This method is the interactive loop of the sharded mode. It asks the same questions
+	 * and prints the same histograms as the normal loop. Typing "shards" at the name prompt
+	 * shows which worker holds which years, and "shards add" starts one more worker and
+	 * moves years to it.
+	 * @param coordinator (coordinator of the workers that hold the data)
+	 * @throws IOException (thrown if a worker cannot be reached)
+	 */
+	public static void shardedLoop(ShardCoordinator coordinator) throws IOException {
+		Scanner userin = new Scanner(System.in);
+		String inputName = "";
+		String inputCounty = "";
+		
+		while (!(inputName.equalsIgnoreCase("q"))) {
+			System.out.println("");
+			System.out.print("Enter a name [q to exit]: ");
+			inputName = userin.nextLine();
+			if (inputName.equalsIgnoreCase("q")) {
+				break;
+			}
+			if (inputName.equalsIgnoreCase("shards")) {
+				System.out.print(coordinator.status());
+				continue;
+			}
+			if (inputName.equalsIgnoreCase("shards add")) {
+				int moved = coordinator.startLocalWorker();
+				System.out.println("Started worker " + (coordinator.workerCount() - 1) + " and moved " + moved + " years.");
+				continue;
+			}
+			
+			System.out.println("");
+			System.out.print("Please enter a county (ALL, for search in all counties): ");
+			inputCounty = userin.nextLine();
+			coordinator.printHistogram(inputName, inputCounty);
+		}
+		System.out.println("");
+		userin.close();
+	}
+	
+	/**
+	 * This method answers a name/county query like the interactive loop does, without
+	 * printing anything. It is the query layer that LoadGenerator puts under load.
+	 * @param allYears (directory to query) and name (the name to find) and county (the county to find, or ALL)
+	 * @return the fraction of every year in directory order, or null if the name/county is
+	 * not in the dataset
+	 */
+	public static double[] answer(YearDirectory allYears, String name, String county) {
+		NameKey key = new NameKey().set(name, county.equalsIgnoreCase("all") ? null : county);
+		double[] fractions = new double[allYears.size()];
+		return allYears.fractions(key, fractions) ? fractions : null;
+	}
+	
+	/**
+	 * This method prints how far the fractions of a histogram of the approximate mode can
+	 * be above the exact ones: the largest error bound over the years.
+	 * @param allYears (directory of ApproxYearNames objects)
+	 * @param inputCounty (county of the histogram, or ALL)
+	 */
+	public static void approximationNote(YearDirectory allYears, String inputCounty) {
+		double error = 0;
+		for (YearNames yeartest : allYears) {
+			ApproxYearNames year = (ApproxYearNames) yeartest;
+			error = Math.max(error, inputCounty.equalsIgnoreCase("all") ? year.getFractionError()
+					: year.getFractionErrorByCounty(inputCounty));
+		}
+		System.out.printf("Estimates: every fraction is at most %.4f above the exact one with probability %.0f%%.\n",
+				error, 100 * (1 - APPROX_DELTA));
+	}
+	
+	/**
+	 * This method applies a correction typed at the name prompt. A correction is a line of
+	 * the CSV file preceded by + to add the row or by - to remove it (the count of a removed
+	 * row can be left out):
+	 *   +2012,Emma,Kings,F,120
+	 *   -2012,Emma,Kings,F
+	 * @param allYears (directory to change)
+	 * @param input (the correction)
+	 */
+	public static void correct(YearDirectory allYears, String input) {
+		String[] fields = input.substring(1).split(",");
+		boolean add = input.startsWith("+");
+		try {
+			int year = Integer.parseInt(fields[0].trim());
+			int count = fields.length > 4 ? Integer.parseInt(fields[4].trim()) : 0;
+			if (add && fields.length < 5) {
+				throw new IllegalArgumentException("The count is missing.");
+			}
+			Name name = new Name(fields[1].trim(), fields[3].trim(), count, fields[2].trim());
+			if (add) {
+				allYears.add(year, name);
+				System.out.println("Added " + name + " to " + year + ".");
+			} else if (allYears.remove(year, name)) {
+				System.out.println("Removed " + name.getName() + " from " + year + ".");
+			} else {
+				System.out.println("No such name/county in the dataset.");
+			}
+		} catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+			System.out.println("Error: a correction must look like +year,name,county,gender,count or -year,name,county,gender");
+		} catch (UnsupportedOperationException | UncheckedIOException e) {
+			System.out.println("Error: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * This method runs a query typed at the name prompt. "query" followed by a query of the
+	 * query language (see Query) prints the results, "explain" also prints the plan and the
+	 * number of nodes the plan visited:
+	 *   query name=Emma county in (Kings,Queens) years 2005..2015
+	 *   explain name=Em* gender=F show top 5
+	 * @param allYears (directory to query)
+	 * @param input (the query)
+	 */
+	public static void runQuery(YearDirectory allYears, String input) {
+		boolean explain = input.toLowerCase().startsWith("explain ");
+		if (allYears instanceof ApproxYearDirectory) {
+			System.out.println("Error: queries need the rows, which the approximate mode does not keep.");
+			return;
+		}
+		try {
+			QueryPlan plan = new QueryPlan(new Query(input.substring(input.indexOf(' ') + 1)), allYears);
+			plan.run();
+			if (explain) {
+				System.out.print(plan.explain());
+			}
+			plan.print();
+		} catch (IllegalArgumentException e) {
+			System.out.println("Error: " + e.getMessage());
+		} catch (UncheckedIOException e) {
+			System.out.println("Error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * This method runs a similarity search typed at the name prompt: "similar" followed by
+	 * a name and optionally the number of names to list (default 10) and "euclidean" to
+	 * compare the fractions themselves instead of the shape of the curves:
+	 *   similar Isabella
+	 *   similar Isabella 20 euclidean
+	 * @param index (index to search)
+	 * @param input (the search)
+	 */
+	public static void similarNames(SimilarityIndex index, String input) {
+		String[] words = input.trim().split("\\s+");
+		if (words.length < 2) {
+			System.out.println("Error: a similarity search must look like: similar name [count] [euclidean|correlation]");
+			return;
+		}
+		int k = 10;
+		int metric = SimilarityIndex.CORRELATION;
+		for (int i = 2; i < words.length; i++) {
+			if (words[i].equalsIgnoreCase("euclidean")) {
+				metric = SimilarityIndex.EUCLIDEAN;
+			} else if (words[i].equalsIgnoreCase("correlation")) {
+				metric = SimilarityIndex.CORRELATION;
+			} else {
+				try {
+					k = Integer.parseInt(words[i]);
+				} catch (NumberFormatException e) {
+					System.out.println("Error: a similarity search must look like: similar name [count] [euclidean|correlation]");
+					return;
+				}
+			}
+		}
+		try {
+			long start = System.nanoTime();
+			ArrayList<SimilarityIndex.Match> matches = index.similar(words[1], k, metric);
+			long elapsed = System.nanoTime() - start;
+			System.out.println("Names that trended most like " + words[1]
+					+ (metric == SimilarityIndex.CORRELATION ? " (by correlation):" : " (by Euclidean distance):"));
+			for (int i = 0; i < matches.size(); i++) {
+				SimilarityIndex.Match match = matches.get(i);
+				System.out.printf("%3d. %-15s correlation %6.3f  distance %.6f\n", i + 1, match.getName(),
+						match.getCorrelation(), match.getDistance());
+			}
+			System.out.printf("Found in %.2f ms\n", elapsed / 1e6);
+		} catch (IllegalArgumentException e) {
+			System.out.println("Error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * This method creates an empty directory that stores its years with the specified engine.
+	 * @param engine (avl for YearNames objects, arena for ArenaYearNames objects, btree for BTreeYearNames objects)
+	 * @return a new, empty directory
+	 */
+	public static YearDirectory newDirectory(String engine) {
+		if (engine.equals("arena")) {
+			return new ArenaYearDirectory();
+		}
+		if (engine.equals("btree")) {
+			return new BTreeYearDirectory();
+		}
+		return new YearDirectory();
+	}
+	
+	/**
+	 * This method reads a CSV file into a sink. Gzipped and zipped files are decompressed
+	 * while they are read. Compressed files, and every file if a report is asked for, are
+	 * read by a PipelinedLoader whose stages run on their own threads.
+	 * @param file (CSV file, plain, gzipped or zipped)
+	 * @param sink (sink the names are added to, usually a directory)
+	 * @param report (true to print the throughput and waiting time of every stage)
+	 * @throws IOException (thrown if the file cannot be read)
+	 */
+	public static void loadCSV(File file, NameSink sink, boolean report) throws IOException {
+		if (!report && !PipelinedLoader.isCompressed(file)) {
+			try (Scanner scanner = new Scanner(file)) {
+				readCSV(scanner, sink);
+			}
+			return;
+		}
+		PipelinedLoader loader = new PipelinedLoader(file);
+		loader.load(sink);
+		if (report) {
+			System.err.print(loader.report());
+		}
+	}
+
+	/**
+	 * This method reads every line of a CSV file, validates the name objects and passes
+	 * them to the sink, usually a directory. Lines that cannot be parsed are skipped.
+	 * @param scanner (scanner positioned at the start of the CSV file)
+	 * @param directory (sink the names are added to)
+	 */
+	public static void readCSV(Scanner scanner, NameSink directory) {
 		//variables to hold data for csv file and interaction
 		String entry = null;
 		Scanner readEntry = null;
@@ -65,7 +663,6 @@ public class NYSBabyNames {
 		int year = 0;
 		String county = null;
 		Name stored = null;
-		boolean exists = false;
 		
 		//CSV FILE PARSING PORTION
 		//while we are not at the end of the file
@@ -95,7 +692,9 @@ public class NYSBabyNames {
 					continue;
 				}
 			} catch (NoSuchElementException e) {
+				//a short line has no name to make, and the fields still hold the previous line
 				System.err.println("Error: "+ entry);
+				continue;
 			}
 			
 			//try to make a name object with the feilds of the file
@@ -106,90 +705,61 @@ public class NYSBabyNames {
 				continue; // if invalid parameters just continue to next line in file
 			}
 			
-			exists = false;
-			
-			//iteracte over all the years
-			for (int i = 0; i < allYears.size(); i++) {
-				if (allYears.get(i).getYear() == year) {
-					allYears.get(i).add(stored);
-					exists = true;
-				}
-			}
-			
-			//if the year is not found in the arraylist then create a new yearnames obj with it
-			if (!exists) {
-				allYears.add(new YearNames(year));
-				allYears.get(allYears.size()-1).add(stored);
-			}
+			directory.add(year, stored);
 		}
+	}
 
-		//USER INERACTIVE PORTION
-		//useful varaibles for interaction
-		Scanner userin = new Scanner(System.in);
-		String inputName= "";
-		String inputCounty = "";
-		boolean ispresent = false;
-		double fraction = 0;
-		
-		while (!(inputName.equalsIgnoreCase("q"))) {
-			ispresent = false;
-			System.out.println("");
-			System.out.print("Enter a name [q to exit]: ");
-			inputName= userin.nextLine();
-			//check for keyword q(quit)
-			if (inputName.equalsIgnoreCase("q")) {
-				break;
-			}
-			
-			System.out.println("");
-			System.out.print("Please enter a county (ALL, for search in all counties): ");
-			inputCounty = userin.nextLine();
-			
-			//check for all keyword
-			//check to find requested name/county
-			if (inputCounty.equalsIgnoreCase("all")) {
-				for ( YearNames yeartest : allYears ) {
-					fraction = yeartest.getFractionByName(inputName);
-					if (fraction > 0) {
-						ispresent = true;
-						break;
-					}
-				}
-			} else {
-				for ( YearNames yeartest : allYears ) {
-					fraction = yeartest.getFractionByNameCounty(inputName, inputCounty);
-					if (fraction > 0) {
-						ispresent = true;
-						break;
-					}
-				}
-			}
-			
-			//if actually found the input
-			if (ispresent) {
-				if (inputCounty.equalsIgnoreCase("all")) {
-					System.out.println("\n");
-					for ( YearNames yeartest : allYears ) {
-						//print out histogram for all
-						histogramForName(yeartest, inputName);
-					}
-				} else {
-					System.out.println("\n");
-					for ( YearNames yeartest : allYears ) {
-						//print out histogram for one county
-						histogramForCounty(yeartest, inputName, inputCounty);
-					}
-				}
-			} else {
-				//if havent found inputted name/county pair
-				System.out.println("No such name/county in the dataset.");
-			}
-			
+	/**
+	 * This method prints the counties ranked by the share of a name over all years, highest
+	 * share first, with the same kind of histogram as histogramForCounty().
+	 * @param counties (county index) and name (the name to find)
+	 */
+	public static void countyRanking(CountyIndex counties, String name) {
+		double[] shares = counties.getShares(name, CountyIndex.ALL_YEARS);
+		int[] ranked = counties.rankCounties(name, CountyIndex.ALL_YEARS);
+		if (ranked.length == 0) {
+			System.out.println("No such name/county in the dataset.");
+			return;
+		}
+		System.out.println("\n");
+		for (int i = 0; i < ranked.length; i++) {
+			printBar(counties.getCounty(ranked[i]), shares[ranked[i]]);
 		}
-		System.out.println("");
-		userin.close();
 	}
-	
+
+	/**
+	 * This method prints the share of a name in every region over all years.
+	 * @param counties (county index) and name (the name to find)
+	 */
+	public static void regionRollup(CountyIndex counties, String name) {
+		double[] shares = counties.getRegionShares(name, CountyIndex.ALL_YEARS);
+		boolean found = false;
+		for (double share : shares) {
+			found |= share > 0;
+		}
+		if (!found) {
+			System.out.println("No such name/county in the dataset.");
+			return;
+		}
+		System.out.println("\n");
+		for (int r = 0; r < shares.length; r++) {
+			printBar(counties.getRegion(r), shares[r]);
+		}
+	}
+
+	/**
+	 * This method prints one line of a histogram: a label, the percentage and one bar for
+	 * every .01 percent.
+	 * @param label (text in front of the bar) and fract (fraction to print)
+	 */
+	public static void printBar(String label, double fract) {
+		StringBuilder bar = new StringBuilder();
+		for (int i = 0; i < (fract*10000); i += 1) {
+			bar.append('|');
+		}
+		System.out.printf("%s (%.4f): %s\n", label, fract*100, bar);
+	}
+
 	/**
 	 * This method finds the fraction of occurences of a specified name in a year and prints
 	 * out the apropriate histogram for that name for that year.
@@ -198,16 +768,7 @@ public class NYSBabyNames {
 	 */
 	public static void histogramForName(YearNames year, String name) {
 		//get the fraction for the name in oen year
-		double fract = year.getFractionByName(name);
-		String HISTOGRAM = "";
-
-		//for every .01
-		for (int i = 0; i < (fract*10000); i += 1) {
-			HISTOGRAM += "|";
-		}
-		//formatting the print
-		System.out.printf(year.getYear() + " (%.4f): "+ HISTOGRAM + "\n", (fract*100));
-		
+		printBar(String.valueOf(year.getYear()), year.getFractionByName(name));
 	}
 
 	/**
@@ -217,11 +778,6 @@ public class NYSBabyNames {
 	 * @param name (the name to find)
 	 */
 	public static void histogramForCounty(YearNames year, String name, String county) {
-		double fract = year.getFractionByNameCounty(name, county);
-		String HISTOGRAM = "";
-		for (int i = 0; i < (fract*10000); i += 1) {
-			HISTOGRAM += "|";
-		}
-		System.out.printf(year.getYear() + " (%.4f): "+ HISTOGRAM + "\n", (fract*100));
+		printBar(String.valueOf(year.getYear()), year.getFractionByNameCounty(name, county));
 	}
 }
\ No newline at end of file
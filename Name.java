@@ -83,6 +83,21 @@ public class Name implements Comparable<Name> {
 		return county;
 	}
 
+	/**
+	 * Helper method that returns the case folded form of a string. Two strings are equal
+	 * ignoring case exactly when their folded forms are equal, and the folded forms sort
+	 * in the same order as compareToIgnoreCase(), so they can be used as keys of hash tables.
+	 * @param s (string to fold)
+	 * @return the folded string
+	 */
+	public static String fold(String s) {
+		char[] chars = s.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+	
 	//implement the Comparable interface
 	/**
 	 * This method returns an integer representation of 1,0,-1 in comparing two Name objects. 
@@ -0,0 +1,141 @@
+package project5;
+
+/**
+ * This class is the key of a name or (name, county) query, case folded once when it is
+ * set instead of at every node a tree walk compares it with. It also holds the hashes the
+ * bloom filters need, so checking a filter does not fold or concatenate strings either.
+ *
+ * A NameKey is meant to be reused: set() only allocates when a name or county is longer
+ * than any set before, so a caller that keeps one key per thread queries without
+ * allocating. A key must not be shared by threads while it is set.
+ * @author Sarah Wardles
+ *
+ */
+public class NameKey {
+
+	//the strings as given, for the engines that take strings
+	protected String name;
+	protected String county;
+	//the folded characters, see Name.fold()
+	protected char[] foldedName = new char[16];
+	protected int nameLength;
+	protected char[] foldedCounty = new char[16];
+	protected int countyLength;
+	//hashes of the keys of the bloom filters, see BloomFilter.pairKey()
+	protected long nameHash;
+	protected long pairHash;
+
+	/**
+	 * Method that sets the key to a name, for a query over all counties.
+	 * @param name (name to query)
+	 * @return this key
+	 */
+	public NameKey set(String name) {
+		return set(name, null);
+	}
+
+	/**
+	 * Method that sets the key to a name and a county.
+	 * @param name (name to query) and county (county to query, null for all counties)
+	 * @return this key
+	 */
+	public NameKey set(String name, String county) {
+		this.name = name;
+		this.county = county;
+		foldedName = fold(name, foldedName);
+		nameLength = name.length();
+		long h = BloomFilter.FNV_OFFSET;
+		for (int i = 0; i < nameLength; i++) {
+			h = (h ^ foldedName[i]) * BloomFilter.FNV_PRIME;
+		}
+		nameHash = BloomFilter.mix(h);
+		if (county == null) {
+			countyLength = 0;
+			pairHash = 0;
+			return this;
+		}
+		foldedCounty = fold(county, foldedCounty);
+		countyLength = county.length();
+		h = (h ^ '\u0000') * BloomFilter.FNV_PRIME;
+		for (int i = 0; i < countyLength; i++) {
+			h = (h ^ foldedCounty[i]) * BloomFilter.FNV_PRIME;
+		}
+		pairHash = BloomFilter.mix(h);
+		return this;
+	}
+
+	/**
+	 * Method that returns the name as it was given.
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Method that returns the county as it was given.
+	 * @return the county, or null for all counties
+	 */
+	public String getCounty() {
+		return county;
+	}
+
+	/**
+	 * Method that checks whether the key has a county.
+	 * @return false if the key is for all counties
+	 */
+	public boolean hasCounty() {
+		return county != null;
+	}
+
+	/**
+	 * Method that compares the name of the key with a stored name, in the order of
+	 * compareToIgnoreCase().
+	 * @param stored (name stored in a tree)
+	 * @return negative, 0 or positive like name.compareToIgnoreCase(stored)
+	 */
+	public int compareName(String stored) {
+		return compare(foldedName, nameLength, stored);
+	}
+
+	/**
+	 * Method that compares the county of the key with a stored county, in the order of
+	 * compareToIgnoreCase().
+	 * @param stored (county stored in a tree)
+	 * @return negative, 0 or positive like county.compareToIgnoreCase(stored)
+	 */
+	public int compareCounty(String stored) {
+		return compare(foldedCounty, countyLength, stored);
+	}
+
+	/**
+	 * Helper method that compares folded characters with a string, folding the string as it goes.
+	 */
+	private static int compare(char[] folded, int length, String stored) {
+		int common = Math.min(length, stored.length());
+		for (int i = 0; i < common; i++) {
+			char c = stored.charAt(i);
+			if (folded[i] != c) {
+				c = Character.toLowerCase(Character.toUpperCase(c));
+				if (folded[i] != c) {
+					return folded[i] - c;
+				}
+			}
+		}
+		return length - stored.length();
+	}
+
+	/**
+	 * Helper method that folds a string into an array, growing the array if it is too short.
+	 * @return the array holding the folded characters
+	 */
+	private static char[] fold(String s, char[] into) {
+		if (into.length < s.length()) {
+			into = new char[Math.max(s.length(), into.length * 2)];
+		}
+		for (int i = 0; i < s.length(); i++) {
+			into[i] = Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+		}
+		return into;
+	}
+}
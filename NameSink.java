@@ -0,0 +1,18 @@
+package project5;
+
+/**
+ * This interface is implemented by everything that takes the rows of the CSV file one at
+ * a time, such as a YearDirectory that stores them or a StreamingQuery that only adds
+ * them up.
+ * @author Sarah Wardles
+ *
+ */
+public interface NameSink {
+
+	/**
+	 * Method that takes one row of the dataset.
+	 * @param year (year the name belongs to)
+	 * @param name (Name object of the row)
+	 */
+	void add(int year, Name name);
+}
@@ -0,0 +1,445 @@
+package project5;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * This class loads a CSV file, plain, gzipped or zipped, in four stages that run on their
+ * own threads and hand batches to each other through bounded queues:
+ *
+ *   read    reads and decompresses the file into chunks of bytes
+ *   split   cuts the chunks into lines and groups them into batches
+ *   parse   turns a batch of lines into rows with NYSBabyNames.readCSV()
+ *   insert  adds the rows to the sink (on the thread that called load())
+ *
+ * While one stage works on a batch the other stages work on the batches before and after
+ * it. A full queue makes the stage in front of it wait and an empty queue makes the stage
+ * behind it wait; report() shows for every stage how long it worked and how long it waited,
+ * so the slowest stage is the one that never waits for its input.
+ * @author Sarah Wardles
+ *
+ */
+public class PipelinedLoader {
+
+	//number of batches a queue holds before the stage in front of it waits
+	public static final int QUEUE_BATCHES = 16;
+	//number of lines in a batch
+	public static final int BATCH_LINES = 2048;
+	//number of bytes read from the file at once
+	private static final int CHUNK_BYTES = 1 << 16;
+
+	//batches that mark the end of a queue
+	private static final byte[] END_OF_CHUNKS = new byte[0];
+	private static final ArrayList<String> END_OF_LINES = new ArrayList<String>();
+	private static final RowBatch END_OF_ROWS = new RowBatch();
+
+	/**
+	 * A batch of rows produced by the parse stage.
+	 */
+	private static class RowBatch implements NameSink {
+
+		private ArrayList<Integer> years = new ArrayList<Integer>();
+		private ArrayList<Name> names = new ArrayList<Name>();
+
+		@Override
+		public void add(int year, Name name) {
+			years.add(year);
+			names.add(name);
+		}
+	}
+
+	/**
+	 * The measurements of one stage.
+	 */
+	public static class StageStats {
+
+		private String name;
+		private String unit;
+		private long units = 0;
+		private long batches = 0;
+		private long busyNanos = 0;
+		private long inputWaitNanos = 0;
+		private long outputWaitNanos = 0;
+
+		private StageStats(String name, String unit) {
+			this.name = name;
+			this.unit = unit;
+		}
+
+		/**
+		 * Helper method that returns the number of units (bytes, lines or rows) handled per
+		 * second of the time the stage was running.
+		 * @return throughput of the stage
+		 */
+		public double throughput() {
+			long total = busyNanos + inputWaitNanos + outputWaitNanos;
+			return total == 0 ? 0 : units * 1e9 / total;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-6s  %12d %-5s  %7d  %14.0f  %8.1f  %14.1f  %15.1f", name, units, unit, batches,
+					throughput(), busyNanos / 1e6, inputWaitNanos / 1e6, outputWaitNanos / 1e6);
+		}
+	}
+
+	//the file to load
+	protected File file;
+	//the queues between the stages
+	private BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<byte[]>(QUEUE_BATCHES);
+	private BlockingQueue<ArrayList<String>> lines = new ArrayBlockingQueue<ArrayList<String>>(QUEUE_BATCHES);
+	private BlockingQueue<RowBatch> rows = new ArrayBlockingQueue<RowBatch>(QUEUE_BATCHES);
+	//measurements of the read, split, parse and insert stages
+	protected StageStats read = new StageStats("read", "bytes");
+	protected StageStats split = new StageStats("split", "lines");
+	protected StageStats parse = new StageStats("parse", "rows");
+	protected StageStats insert = new StageStats("insert", "rows");
+	//time load() took
+	protected long elapsedNanos = 0;
+	//first failure of a stage thread
+	private volatile Exception failure = null;
+
+	/**
+	 * This is the constructor for the PipelinedLoader object.
+	 * @param file (CSV file to load, plain, gzipped or zipped)
+	 */
+	public PipelinedLoader(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Method that checks if a file starts like a gzip or zip file.
+	 * @param file (file to check)
+	 * @return true if the file is compressed
+	 */
+	public static boolean isCompressed(File file) {
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] magic = new byte[4];
+			int n = in.read(magic);
+			return isGzip(magic, n) || isZip(magic, n);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Helper method that checks for the magic bytes of a gzip file.
+	 */
+	private static boolean isGzip(byte[] magic, int n) {
+		return n >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b;
+	}
+
+	/**
+	 * Helper method that checks for the magic bytes of a zip file.
+	 */
+	private static boolean isZip(byte[] magic, int n) {
+		return n >= 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+	}
+
+	/**
+	 * Helper method that opens a file and decompresses it if it is gzipped or zipped. Of a
+	 * zip file the first entry that ends in .csv is read, or the first entry if none does.
+	 * @param file (file to open)
+	 * @return stream over the contents of the CSV file
+	 * @throws IOException (thrown if the file cannot be opened or a zip file has no entry)
+	 */
+	public static InputStream open(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file), CHUNK_BYTES);
+		in.mark(4);
+		byte[] magic = new byte[4];
+		int n = in.read(magic);
+		in.reset();
+		if (isGzip(magic, n)) {
+			return new GZIPInputStream(in, CHUNK_BYTES);
+		}
+		if (isZip(magic, n)) {
+			//the first entry is the fallback, so a second stream is opened to search for a .csv entry
+			ZipInputStream zip = new ZipInputStream(in);
+			String chosen = null;
+			try (ZipInputStream search = new ZipInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				for (ZipEntry entry = search.getNextEntry(); entry != null; entry = search.getNextEntry()) {
+					if (!entry.isDirectory() && (chosen == null || entry.getName().toLowerCase().endsWith(".csv"))) {
+						boolean csv = entry.getName().toLowerCase().endsWith(".csv");
+						chosen = entry.getName();
+						if (csv) {
+							break;
+						}
+					}
+				}
+			}
+			for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+				if (entry.getName().equals(chosen)) {
+					return zip;
+				}
+			}
+			zip.close();
+			throw new IOException("The zip file has no entry to read.");
+		}
+		return in;
+	}
+
+	/**
+	 * Method that loads the file into a sink. It returns when every row was added.
+	 * @param sink (sink the rows are added to, usually a directory)
+	 * @throws IOException (thrown if the file cannot be read or a stage failed)
+	 */
+	public void load(NameSink sink) throws IOException {
+		long start = System.nanoTime();
+		final InputStream in = open(file);
+		Thread[] threads = {
+			new Thread(() -> readStage(in), "pipeline-read"),
+			new Thread(this::splitStage, "pipeline-split"),
+			new Thread(this::parseStage, "pipeline-parse")
+		};
+		for (Thread thread : threads) {
+			thread.setDaemon(true);
+			thread.start();
+		}
+		try {
+			insertStage(sink);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			fail(e);
+		} catch (RuntimeException e) {
+			fail(e);
+		} finally {
+			//stages that are still blocked on a queue after a failure are stopped
+			for (Thread thread : threads) {
+				thread.interrupt();
+			}
+			in.close();
+			elapsedNanos = System.nanoTime() - start;
+		}
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure != null) {
+			throw new IOException("The load was interrupted.", failure);
+		}
+	}
+
+	/**
+	 * The read stage: reads the decompressed file in chunks.
+	 */
+	private void readStage(InputStream in) {
+		try {
+			byte[] buffer = new byte[CHUNK_BYTES];
+			while (true) {
+				long begin = System.nanoTime();
+				int n = in.read(buffer);
+				read.busyNanos += System.nanoTime() - begin;
+				if (n < 0) {
+					break;
+				}
+				if (n > 0) {
+					read.units += n;
+					read.batches++;
+					put(chunks, Arrays.copyOf(buffer, n), read);
+				}
+			}
+		} catch (IOException | InterruptedException e) {
+			fail(e);
+		} finally {
+			end(chunks, END_OF_CHUNKS);
+		}
+	}
+
+	/**
+	 * The split stage: cuts the chunks into lines. A line that runs over the end of a
+	 * chunk is kept until the next one. Lines are cut at '\n' bytes, which never occur
+	 * inside a multi-byte UTF-8 character.
+	 */
+	private void splitStage() {
+		try {
+			byte[] partial = new byte[0];
+			ArrayList<String> batch = new ArrayList<String>(BATCH_LINES);
+			while (true) {
+				byte[] chunk = take(chunks, split);
+				if (chunk == END_OF_CHUNKS) {
+					break;
+				}
+				long begin = System.nanoTime();
+				int from = 0;
+				for (int i = 0; i < chunk.length; i++) {
+					if (chunk[i] == '\n') {
+						batch.add(line(partial, chunk, from, i));
+						partial = new byte[0];
+						from = i + 1;
+						if (batch.size() == BATCH_LINES) {
+							split.busyNanos += System.nanoTime() - begin;
+							emitLines(batch);
+							batch = new ArrayList<String>(BATCH_LINES);
+							begin = System.nanoTime();
+						}
+					}
+				}
+				//keep the start of the line that continues in the next chunk
+				byte[] rest = Arrays.copyOf(partial, partial.length + chunk.length - from);
+				System.arraycopy(chunk, from, rest, partial.length, chunk.length - from);
+				partial = rest;
+				split.busyNanos += System.nanoTime() - begin;
+			}
+			if (partial.length > 0) {
+				batch.add(line(partial, partial, partial.length, partial.length));
+			}
+			if (!batch.isEmpty()) {
+				emitLines(batch);
+			}
+		} catch (InterruptedException e) {
+			fail(e);
+		} finally {
+			end(lines, END_OF_LINES);
+		}
+	}
+
+	/**
+	 * Helper method that decodes a line made of the end of a previous chunk and part of
+	 * the current one, without the line break.
+	 */
+	private static String line(byte[] partial, byte[] chunk, int from, int to) {
+		byte[] bytes = chunk;
+		int offset = from;
+		int length = to - from;
+		if (partial.length > 0) {
+			bytes = Arrays.copyOf(partial, partial.length + length);
+			System.arraycopy(chunk, from, bytes, partial.length, length);
+			offset = 0;
+			length = bytes.length;
+		}
+		if (length > 0 && bytes[offset + length - 1] == '\r') {
+			length--;
+		}
+		return new String(bytes, offset, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Helper method that passes a batch of lines to the parse stage.
+	 */
+	private void emitLines(ArrayList<String> batch) throws InterruptedException {
+		split.units += batch.size();
+		split.batches++;
+		put(lines, batch, split);
+	}
+
+	/**
+	 * The parse stage: parses every batch of lines with the same rules as readCSV().
+	 */
+	private void parseStage() {
+		try {
+			while (true) {
+				ArrayList<String> batch = take(lines, parse);
+				if (batch == END_OF_LINES) {
+					break;
+				}
+				long begin = System.nanoTime();
+				RowBatch parsed = new RowBatch();
+				NYSBabyNames.readCSV(new Scanner(String.join("\n", batch)), parsed);
+				parse.units += parsed.names.size();
+				parse.batches++;
+				parse.busyNanos += System.nanoTime() - begin;
+				put(rows, parsed, parse);
+			}
+		} catch (InterruptedException | RuntimeException e) {
+			fail(e);
+		} finally {
+			end(rows, END_OF_ROWS);
+		}
+	}
+
+	/**
+	 * The insert stage: adds the rows to the sink in the order of the file.
+	 */
+	private void insertStage(NameSink sink) throws InterruptedException {
+		while (true) {
+			RowBatch batch = take(rows, insert);
+			if (batch == END_OF_ROWS) {
+				break;
+			}
+			long begin = System.nanoTime();
+			for (int i = 0; i < batch.names.size(); i++) {
+				sink.add(batch.years.get(i), batch.names.get(i));
+			}
+			insert.units += batch.names.size();
+			insert.batches++;
+			insert.busyNanos += System.nanoTime() - begin;
+		}
+	}
+
+	/**
+	 * Helper method that puts a batch on a queue and counts the time waited for room.
+	 */
+	private static <T> void put(BlockingQueue<T> queue, T batch, StageStats stage) throws InterruptedException {
+		long begin = System.nanoTime();
+		queue.put(batch);
+		stage.outputWaitNanos += System.nanoTime() - begin;
+	}
+
+	/**
+	 * Helper method that takes a batch from a queue and counts the time waited for it.
+	 */
+	private static <T> T take(BlockingQueue<T> queue, StageStats stage) throws InterruptedException {
+		long begin = System.nanoTime();
+		T batch = queue.take();
+		stage.inputWaitNanos += System.nanoTime() - begin;
+		return batch;
+	}
+
+	/**
+	 * Helper method that marks the end of a queue. After a failure the stage behind may be
+	 * gone, so the mark is only offered then.
+	 */
+	private <T> void end(BlockingQueue<T> queue, T mark) {
+		try {
+			if (failure == null) {
+				queue.put(mark);
+			} else {
+				queue.clear();
+				queue.offer(mark);
+			}
+		} catch (InterruptedException e) {
+			queue.clear();
+			queue.offer(mark);
+		}
+	}
+
+	/**
+	 * Helper method that remembers the first failure of a stage.
+	 */
+	private synchronized void fail(Exception e) {
+		if (failure == null) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * Method that describes what every stage of the last load() did: the units it handled,
+	 * its throughput, the time it worked and the time it waited for its input and for
+	 * room in its output queue.
+	 * @return the report, one line per stage
+	 */
+	public String report() {
+		StringBuilder s = new StringBuilder();
+		s.append(String.format("Pipelined load of %s in %.1f ms%n", file.getName(), elapsedNanos / 1e6));
+		s.append(String.format("%-6s  %18s  %7s  %14s  %8s  %14s  %15s%n", "stage", "units", "batches", "units/s",
+				"busy ms", "input wait ms", "output wait ms"));
+		for (StageStats stage : new StageStats[] {read, split, parse, insert}) {
+			s.append(stage).append("\n");
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,295 @@
+package project5;
+
+import java.util.ArrayList;
+
+/**
+ * This class parses and holds a query of the small query language of the program. A
+ * query is a list of clauses, in any order:
+ *
+ *   name=Emma                 one name (ignoring case)
+ *   name=Em*                  every name that starts with Em
+ *   county=Kings              one county, "quoted" if it has spaces
+ *   county in (Kings,Queens)  a set of counties
+ *   years 2005..2015          a range of years (also years=2005..2015 or year=2010)
+ *   gender=F                  one gender
+ *   count>=10                 rows with a count >, >=, <, <= or = a number
+ *   show fraction             what to compute: fraction (the default), sum, total,
+ *                             rows or top N
+ *
+ * For example: name=Emma county in (Kings,Queens) years 2005..2015 gender=F
+ * @author Sarah Wardles
+ *
+ */
+public class Query {
+
+	//what a query can compute
+	public static final String FRACTION = "fraction";
+	public static final String SUM = "sum";
+	public static final String TOTAL = "total";
+	public static final String ROWS = "rows";
+	public static final String TOP = "top";
+
+	//name to find, or prefix if namePrefix is true; null for every name
+	protected String name = null;
+	protected boolean namePrefix = false;
+	//counties to find; empty for every county
+	protected ArrayList<String> counties = new ArrayList<String>();
+	//range of years, inclusive
+	protected int fromYear = Integer.MIN_VALUE;
+	protected int toYear = Integer.MAX_VALUE;
+	//gender to find; null for both
+	protected String gender = null;
+	//count threshold: operator (one of > >= < <= =) and value; null for none
+	protected String countOperator = null;
+	protected int countValue = 0;
+	//what to compute and the N of top N
+	protected String show = FRACTION;
+	protected int top = 10;
+
+	//the tokens of the text being parsed
+	private ArrayList<String> tokens;
+	private int position;
+
+	/**
+	 * This is the constructor for the Query object. It parses the text of the query.
+	 * @param text (text of the query)
+	 * @throws IllegalArgumentException (thrown if the text is not a valid query)
+	 */
+	public Query(String text) {
+		tokens = tokenize(text);
+		position = 0;
+		while (position < tokens.size()) {
+			String keyword = next().toLowerCase();
+			if (keyword.equals("name")) {
+				expect("=");
+				name = value();
+				if (name.endsWith("*")) {
+					name = name.substring(0, name.length() - 1);
+					namePrefix = true;
+				}
+				if (name.isEmpty() && !namePrefix) {
+					throw new IllegalArgumentException("The name must not be empty.");
+				}
+			} else if (keyword.equals("county")) {
+				String operator = next();
+				if (operator.equals("=")) {
+					counties.add(value());
+				} else if (operator.equalsIgnoreCase("in")) {
+					expect("(");
+					counties.add(value());
+					while (peek(",")) {
+						next();
+						counties.add(value());
+					}
+					expect(")");
+				} else {
+					throw new IllegalArgumentException("Expected = or in after county.");
+				}
+			} else if (keyword.equals("year") || keyword.equals("years")) {
+				if (peek("=")) {
+					next();
+				}
+				yearRange(value());
+			} else if (keyword.equals("gender")) {
+				expect("=");
+				gender = value();
+				if (!(gender.equalsIgnoreCase("f") || gender.equalsIgnoreCase("m"))) {
+					throw new IllegalArgumentException("The gender must be F or M.");
+				}
+			} else if (keyword.equals("count")) {
+				countOperator = next();
+				if (!(countOperator.equals(">") || countOperator.equals(">=") || countOperator.equals("<")
+						|| countOperator.equals("<=") || countOperator.equals("="))) {
+					throw new IllegalArgumentException("Expected >, >=, <, <= or = after count.");
+				}
+				countValue = number(value());
+			} else if (keyword.equals("show")) {
+				show = value().toLowerCase();
+				if (show.equals(TOP)) {
+					top = number(value());
+					if (top < 1) {
+						throw new IllegalArgumentException("The N of top N must be positive.");
+					}
+				} else if (!(show.equals(FRACTION) || show.equals(SUM) || show.equals(TOTAL) || show.equals(ROWS))) {
+					throw new IllegalArgumentException("Expected fraction, sum, total, rows or top N after show.");
+				}
+			} else {
+				throw new IllegalArgumentException("Unknown clause " + keyword + ".");
+			}
+		}
+		tokens = null;
+	}
+
+	/**
+	 * Helper method that parses a year or a range of years such as 2005..2015.
+	 * @param text (year or range)
+	 */
+	private void yearRange(String text) {
+		int dots = text.indexOf("..");
+		if (dots < 0) {
+			fromYear = number(text);
+			toYear = fromYear;
+		} else {
+			fromYear = dots == 0 ? Integer.MIN_VALUE : number(text.substring(0, dots));
+			toYear = dots + 2 == text.length() ? Integer.MAX_VALUE : number(text.substring(dots + 2));
+		}
+		if (fromYear > toYear) {
+			throw new IllegalArgumentException("The range of years is empty.");
+		}
+	}
+
+	/**
+	 * Method that checks the clauses the planner could not push into the tree descent.
+	 * @param row (Name object to check)
+	 * @return true if the row matches the name, county, gender and count clauses
+	 */
+	public boolean matches(Name row) {
+		if (name != null) {
+			if (namePrefix) {
+				if (!row.getName().regionMatches(true, 0, name, 0, name.length())) {
+					return false;
+				}
+			} else if (!row.getName().equalsIgnoreCase(name)) {
+				return false;
+			}
+		}
+		if (!counties.isEmpty()) {
+			boolean found = false;
+			for (String county : counties) {
+				found |= county.equalsIgnoreCase(row.getCounty());
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		if (gender != null && !gender.equalsIgnoreCase(row.getGender())) {
+			return false;
+		}
+		return matchesCount(row.getCount());
+	}
+
+	/**
+	 * Method that checks the count clause.
+	 * @param count (count of a row)
+	 * @return true if there is no count clause or the count passes it
+	 */
+	public boolean matchesCount(int count) {
+		if (countOperator == null) {
+			return true;
+		}
+		switch (countOperator) {
+		case ">":
+			return count > countValue;
+		case ">=":
+			return count >= countValue;
+		case "<":
+			return count < countValue;
+		case "<=":
+			return count <= countValue;
+		default:
+			return count == countValue;
+		}
+	}
+
+	/**
+	 * Method that checks the year clause.
+	 * @param year (year to check)
+	 * @return true if the year is in the range of the query
+	 */
+	public boolean matchesYear(int year) {
+		return year >= fromYear && year <= toYear;
+	}
+
+	/**
+	 * Helper method that splits the text of a query into tokens: the symbols = ( ) , and
+	 * the comparison operators, "quoted" values, and words.
+	 */
+	private static ArrayList<String> tokenize(String text) {
+		ArrayList<String> list = new ArrayList<String>();
+		int i = 0;
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '"') {
+				int end = text.indexOf('"', i + 1);
+				if (end < 0) {
+					throw new IllegalArgumentException("A quote is not closed.");
+				}
+				//quoted values keep a leading quote so they are never taken for a symbol
+				list.add("\"" + text.substring(i + 1, end));
+				i = end + 1;
+			} else if (c == '(' || c == ')' || c == ',' || c == '=') {
+				list.add(String.valueOf(c));
+				i++;
+			} else if (c == '<' || c == '>') {
+				if (i + 1 < text.length() && text.charAt(i + 1) == '=') {
+					list.add(text.substring(i, i + 2));
+					i += 2;
+				} else {
+					list.add(String.valueOf(c));
+					i++;
+				}
+			} else {
+				int start = i;
+				while (i < text.length() && !Character.isWhitespace(text.charAt(i)) && "()=,<>\"".indexOf(text.charAt(i)) < 0) {
+					i++;
+				}
+				list.add(text.substring(start, i));
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Helper method that returns the next token.
+	 */
+	private String next() {
+		if (position >= tokens.size()) {
+			throw new IllegalArgumentException("The query ends too early.");
+		}
+		return tokens.get(position++);
+	}
+
+	/**
+	 * Helper method that checks if the next token is the given symbol.
+	 */
+	private boolean peek(String symbol) {
+		return position < tokens.size() && tokens.get(position).equals(symbol);
+	}
+
+	/**
+	 * Helper method that reads the given symbol.
+	 */
+	private void expect(String symbol) {
+		String token = next();
+		if (!token.equals(symbol)) {
+			throw new IllegalArgumentException("Expected " + symbol + " but found " + token + ".");
+		}
+	}
+
+	/**
+	 * Helper method that reads a value, which is a word or a "quoted" value.
+	 */
+	private String value() {
+		String token = next();
+		if (token.startsWith("\"")) {
+			return token.substring(1);
+		}
+		if (token.length() == 1 && "()=,<>".indexOf(token.charAt(0)) >= 0) {
+			throw new IllegalArgumentException("Expected a value but found " + token + ".");
+		}
+		return token;
+	}
+
+	/**
+	 * Helper method that parses a number.
+	 */
+	private static int number(String text) {
+		try {
+			return Integer.parseInt(text);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Expected a number but found " + text + ".");
+		}
+	}
+}
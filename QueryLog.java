@@ -0,0 +1,74 @@
+package project5;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+/**
+ * This class writes and reads query logs: the name/county queries typed at the prompt of
+ * the program, one per line as the name and the county separated by a tab. Lines that
+ * start with # are comments. A log is appended to, so several sessions can be recorded
+ * into one file, and LoadGenerator replays it.
+ * @author Sarah Wardles
+ *
+ */
+public class QueryLog implements Closeable {
+
+	//the open log file
+	private PrintWriter out;
+
+	/**
+	 * This is the constructor for the QueryLog object. It opens the file for appending.
+	 * @param file (log file, created if it does not exist)
+	 * @throws FileNotFoundException (thrown if the file cannot be opened)
+	 */
+	public QueryLog(File file) throws FileNotFoundException {
+		out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Method that appends a query to the log. Every query is flushed, so a session that is
+	 * killed keeps the queries typed so far.
+	 * @param name (name of the query) and county (county of the query, or ALL)
+	 */
+	public void record(String name, String county) {
+		out.print(name.replace('\t', ' ') + "\t" + county.replace('\t', ' ') + "\n");
+		out.flush();
+	}
+
+	/**
+	 * Closes the log file.
+	 */
+	@Override
+	public void close() {
+		out.close();
+	}
+
+	/**
+	 * Method that reads every query of a log. Lines without a tab are skipped.
+	 * @param file (log file)
+	 * @return the queries as {name, county} pairs in the order they were recorded
+	 * @throws IOException (thrown if the file cannot be read)
+	 */
+	public static ArrayList<String[]> read(File file) throws IOException {
+		ArrayList<String[]> queries = new ArrayList<String[]>();
+		try (Scanner scanner = new Scanner(file, StandardCharsets.UTF_8.name())) {
+			while (scanner.hasNextLine()) {
+				String line = scanner.nextLine();
+				int tab = line.indexOf('\t');
+				if (line.startsWith("#") || tab < 0) {
+					continue;
+				}
+				queries.add(new String[] {line.substring(0, tab), line.substring(tab + 1)});
+			}
+		}
+		return queries;
+	}
+}
@@ -0,0 +1,369 @@
+package project5;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class plans and runs a Query against a YearDirectory. Planning pushes as many
+ * clauses as it can into the trees:
+ *
+ *   - the year clause picks the YearNames objects to read, other years are never loaded;
+ *   - a name, a name with counties, or a name, counties and gender become bounds of
+ *     range descents (AVLTree.scan()), so only the nodes on the paths to the matching
+ *     rows are visited instead of the whole tree;
+ *   - a name prefix becomes one range descent from the prefix to the end of the prefix;
+ *   - for one name the bloom filters of a year can skip the year without a descent.
+ *
+ * The clauses that cannot become bounds (a county without a name, a gender without a
+ * county, a count threshold) are checked on every row the descent returns. explain()
+ * describes the plan, and after run() the number of nodes visited.
+ * @author Sarah Wardles
+ *
+ */
+public class QueryPlan {
+
+	/**
+	 * A bound of a range descent over Name objects. A bound holds the leading part of the
+	 * key (name or name prefix, then optionally county, then optionally gender) and sorts
+	 * just before (LOW) or just after (HIGH) every Name object that starts with that part.
+	 */
+	protected static class NameBound implements Comparable<Name> {
+
+		protected static final int LOW = -1;
+		protected static final int HIGH = 1;
+
+		private String name;     // name or name prefix
+		private boolean prefix;  // true if name is a prefix
+		private String county;   // county or null
+		private String gender;   // gender or null
+		private int side;        // LOW or HIGH
+
+		protected NameBound(String name, boolean prefix, String county, String gender, int side) {
+			this.name = name;
+			this.prefix = prefix;
+			this.county = county;
+			this.gender = gender;
+			this.side = side;
+		}
+
+		/**
+		 * Compares the bound with a Name object in the order of Name.compareTo().
+		 * @return negative if the bound sorts before the Name object, positive if after
+		 */
+		@Override
+		public int compareTo(Name other) {
+			int compare = prefix ? comparePrefix(name, other.getName()) : name.compareToIgnoreCase(other.getName());
+			if (compare != 0 || prefix) {
+				return compare != 0 ? compare : side;
+			}
+			if (county == null) {
+				return side;
+			}
+			compare = county.compareToIgnoreCase(other.getCounty());
+			if (compare != 0) {
+				return compare;
+			}
+			if (gender == null) {
+				return side;
+			}
+			compare = gender.compareToIgnoreCase(other.getGender());
+			return compare != 0 ? compare : side;
+		}
+
+		/**
+		 * Helper method that compares a prefix with the same number of leading characters of
+		 * a string, ignoring case.
+		 * @return 0 if the string starts with the prefix
+		 */
+		private static int comparePrefix(String prefix, String s) {
+			int length = Math.min(prefix.length(), s.length());
+			for (int i = 0; i < length; i++) {
+				char a = Character.toLowerCase(Character.toUpperCase(prefix.charAt(i)));
+				char b = Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+				if (a != b) {
+					return a - b;
+				}
+			}
+			return prefix.length() - length;
+		}
+
+		@Override
+		public String toString() {
+			String s = prefix ? name + "*" : name;
+			if (county != null) {
+				s += "," + county;
+			}
+			if (gender != null) {
+				s += "," + gender;
+			}
+			return s;
+		}
+	}
+
+	//the query and the directory it runs against
+	protected Query query;
+	protected YearDirectory directory;
+	//years to read, in directory order, and the number of years of the directory
+	protected int[] years;
+	protected int allYears;
+	//bounds of the range descents, low at even and high at odd positions; one null pair
+	//is a scan of the whole tree
+	protected ArrayList<NameBound> bounds = new ArrayList<NameBound>();
+	//counties of the query without duplicates
+	protected ArrayList<String> counties = new ArrayList<String>();
+	//clauses that became bounds
+	protected boolean countyPushed = false;
+	protected boolean genderPushed = false;
+
+	//results of run(): per year matched count and total the fraction is taken of
+	protected long[] counts;
+	protected long[] totals;
+	protected ArrayList<String> rows = new ArrayList<String>();
+	protected TreeMap<String, long[]> byName = new TreeMap<String, long[]>();
+	protected HashMap<String, String> spelling = new HashMap<String, String>();
+	//statistics of run()
+	protected long visited = 0;
+	protected long totalVisited = 0;
+	protected long matched = 0;
+	protected int treesRead = 0;
+	protected int yearsSkipped = 0;
+	protected boolean ran = false;
+
+	/**
+	 * This is the constructor for the QueryPlan object. It plans the query, run() runs it.
+	 * @param query (parsed query) and directory (years to query)
+	 */
+	public QueryPlan(Query query, YearDirectory directory) {
+		this.query = query;
+		this.directory = directory;
+
+		//years
+		int[] all = directory.getYears();
+		allYears = all.length;
+		int selected = 0;
+		for (int year : all) {
+			if (query.matchesYear(year)) {
+				selected++;
+			}
+		}
+		years = new int[selected];
+		selected = 0;
+		for (int year : all) {
+			if (query.matchesYear(year)) {
+				years[selected++] = year;
+			}
+		}
+
+		//counties, without duplicates and in tree order so the descents do not overlap
+		TreeMap<String, String> sorted = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+		for (String county : query.counties) {
+			sorted.putIfAbsent(county, county);
+		}
+		counties.addAll(sorted.values());
+
+		//bounds
+		if (query.name != null && !query.namePrefix) {
+			if (counties.isEmpty()) {
+				addRange(query.name, false, null, null);
+			} else {
+				countyPushed = true;
+				genderPushed = query.gender != null;
+				for (String county : counties) {
+					addRange(query.name, false, county, query.gender);
+				}
+			}
+		} else if (query.name != null && !query.name.isEmpty()) {
+			addRange(query.name, true, null, null);
+		} else {
+			bounds.add(null);
+			bounds.add(null);
+		}
+	}
+
+	/**
+	 * Helper method that adds the bounds of one range descent.
+	 */
+	private void addRange(String name, boolean prefix, String county, String gender) {
+		bounds.add(new NameBound(name, prefix, county, gender, NameBound.LOW));
+		bounds.add(new NameBound(name, prefix, county, gender, NameBound.HIGH));
+	}
+
+	/**
+	 * Method that runs the query. A plan can only be run once.
+	 * @throws IllegalStateException (thrown if the plan was already run)
+	 */
+	public void run() {
+		if (ran) {
+			throw new IllegalStateException("The plan was already run.");
+		}
+		ran = true;
+		counts = new long[years.length];
+		totals = new long[years.length];
+		for (int i = 0; i < years.length; i++) {
+			YearNames year = directory.getYear(years[i]);
+			if (year == null) {
+				continue;
+			}
+			//the denominator of a fraction is the year, or the counties of the query
+			if (query.show.equals(Query.FRACTION)) {
+				if (counties.isEmpty()) {
+					totals[i] = year.totalBirths;
+				} else {
+					for (String county : counties) {
+						totals[i] += year.allBabiesInCounty(county);
+						totalVisited += year.size();
+					}
+				}
+			}
+			if (query.name != null && !query.namePrefix && !year.mightContain(query.name)) {
+				yearsSkipped++;
+				continue;
+			}
+			treesRead++;
+			final int index = i;
+			final int yearNumber = years[i];
+			for (int b = 0; b < bounds.size(); b += 2) {
+				NameBound low = bounds.get(b);
+				if (low != null && low.county != null && !year.mightContain(query.name, low.county)) {
+					continue;
+				}
+				visited += year.scan(low, bounds.get(b + 1), row -> {
+					if (query.matches(row)) {
+						collect(index, yearNumber, row);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Helper method that adds a matching row to the results.
+	 */
+	private void collect(int index, int year, Name row) {
+		matched++;
+		counts[index] += row.getCount();
+		if (query.show.equals(Query.ROWS)) {
+			rows.add(year + " " + row);
+		} else if (query.show.equals(Query.TOP)) {
+			String key = Name.fold(row.getName());
+			long[] sum = byName.get(key);
+			if (sum == null) {
+				sum = new long[1];
+				byName.put(key, sum);
+				spelling.put(key, row.getName());
+			}
+			sum[0] += row.getCount();
+		}
+	}
+
+	/**
+	 * Method that describes the plan and, once the plan was run, what running it cost.
+	 * @return the description, one step per line
+	 */
+	public String explain() {
+		StringBuilder s = new StringBuilder();
+		s.append("Plan:\n");
+		s.append("  years: ").append(years.length).append(" of ").append(allYears).append(" years");
+		if (query.fromYear != Integer.MIN_VALUE || query.toYear != Integer.MAX_VALUE) {
+			s.append(" (").append(query.fromYear == Integer.MIN_VALUE ? "" : query.fromYear).append("..")
+					.append(query.toYear == Integer.MAX_VALUE ? "" : query.toYear).append(")");
+		}
+		s.append("\n");
+		if (bounds.get(0) == null) {
+			s.append("  access: scan of every tree\n");
+		} else {
+			s.append("  access: ").append(bounds.size() / 2).append(" range descent").append(bounds.size() > 2 ? "s" : "")
+					.append(" per tree:");
+			for (int b = 0; b < bounds.size(); b += 2) {
+				s.append(" [").append(bounds.get(b)).append("]");
+			}
+			s.append("\n");
+			if (query.name != null && !query.namePrefix) {
+				s.append("  skip: years whose bloom filters rule out the name\n");
+			}
+		}
+		ArrayList<String> filters = new ArrayList<String>();
+		if (!countyPushed && !counties.isEmpty()) {
+			filters.add("county in " + counties);
+		}
+		if (!genderPushed && query.gender != null) {
+			filters.add("gender=" + query.gender);
+		}
+		if (query.countOperator != null) {
+			filters.add("count" + query.countOperator + query.countValue);
+		}
+		s.append("  filter: ").append(filters.isEmpty() ? "none" : String.join(", ", filters)).append("\n");
+		s.append("  show: ").append(query.show).append(query.show.equals(Query.TOP) ? " " + query.top : "");
+		if (query.show.equals(Query.FRACTION)) {
+			s.append(counties.isEmpty() ? " of the births of the year" : " of the births of " + counties);
+		}
+		s.append("\n");
+		if (ran) {
+			s.append("Run: ").append(visited).append(" nodes visited in ").append(treesRead).append(" trees, ")
+					.append(yearsSkipped).append(" years skipped, ").append(matched).append(" rows matched");
+			if (totalVisited > 0) {
+				s.append(", ").append(totalVisited).append(" nodes visited for the county totals");
+			}
+			s.append("\n");
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Method that prints the results of the query. A fraction is printed as a histogram in
+	 * the same format as the interactive program.
+	 */
+	public void print() {
+		if (!ran) {
+			run();
+		}
+		if (matched == 0) {
+			System.out.println("No such name/county in the dataset.");
+			return;
+		}
+		if (query.show.equals(Query.FRACTION)) {
+			System.out.println("\n");
+			for (int i = 0; i < years.length; i++) {
+				NYSBabyNames.printBar(String.valueOf(years[i]), totals[i] == 0 ? 0 : (double) counts[i] / totals[i]);
+			}
+		} else if (query.show.equals(Query.SUM)) {
+			for (int i = 0; i < years.length; i++) {
+				System.out.println(years[i] + ": " + counts[i]);
+			}
+		} else if (query.show.equals(Query.TOTAL)) {
+			long total = 0;
+			for (long count : counts) {
+				total += count;
+			}
+			System.out.println("Total: " + total);
+		} else if (query.show.equals(Query.ROWS)) {
+			for (String row : rows) {
+				System.out.println(row);
+			}
+		} else {
+			ArrayList<Map.Entry<String, long[]>> ranked = new ArrayList<Map.Entry<String, long[]>>(byName.entrySet());
+			ranked.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+			for (int i = 0; i < Math.min(query.top, ranked.size()); i++) {
+				System.out.println((i + 1) + ". " + spelling.get(ranked.get(i).getKey()) + ": " + ranked.get(i).getValue()[0]);
+			}
+		}
+	}
+
+	/**
+	 * Helper method that returns the number of nodes visited by the range descents of run().
+	 * @return number of nodes visited
+	 */
+	public long nodesVisited() {
+		return visited;
+	}
+
+	/**
+	 * Helper method that returns the number of rows that matched the query in run().
+	 * @return number of rows
+	 */
+	public long rowsMatched() {
+		return matched;
+	}
+}
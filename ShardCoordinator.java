@@ -0,0 +1,431 @@
+package project5;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class spreads the years of the dataset over several ShardWorker processes and
+ * answers the queries of the program by asking every worker at once (scatter) and adding
+ * up their per-year counts and totals (gather). Every year is held by exactly one worker,
+ * chosen so that the workers hold about the same number of rows. When a worker is added
+ * the coordinator moves whole years from the fullest workers to it until the rows are
+ * spread as evenly as whole years allow.
+ *
+ * Rows are sent to the workers in batches; queries and rebalancing send the pending
+ * batches first. The workers can be started by the coordinator on this host
+ * (startLocalWorker()) or be running already (addWorker()).
+ * @author Sarah Wardles
+ *
+ */
+public class ShardCoordinator implements NameSink, Closeable {
+
+	//number of rows sent to a worker in one request
+	private static final int BATCH_ROWS = 4096;
+
+	/**
+	 * The connection to one worker and the rows waiting to be sent to it.
+	 */
+	private static class Worker {
+
+		private String address;
+		private Socket socket;
+		private DataInputStream in;
+		private DataOutputStream out;
+		private Process process;        // null if the worker was not started by the coordinator
+		private ByteArrayOutputStream batch = new ByteArrayOutputStream();
+		private DataOutputStream batchOut = new DataOutputStream(batch);
+		private int batchRows = 0;
+		private long rows = 0;          // rows held by the worker, including the batch
+
+		private Worker(String host, int port, Process process) throws IOException {
+			this.address = host + ":" + port;
+			this.socket = new Socket(host, port);
+			this.socket.setTcpNoDelay(true);
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			this.process = process;
+		}
+
+		/**
+		 * Sends the pending batch.
+		 */
+		private synchronized void flush() throws IOException {
+			if (batchRows == 0) {
+				return;
+			}
+			out.writeByte(ShardWorker.LOAD);
+			out.writeInt(batchRows);
+			batch.writeTo(out);
+			out.flush();
+			in.readInt();
+			batch.reset();
+			batchRows = 0;
+		}
+
+		/**
+		 * Sends a count request and reads the per-year reply.
+		 * @return per year: year, count, total
+		 */
+		private synchronized int[][] count(String name, String county) throws IOException {
+			flush();
+			out.writeByte(county == null ? ShardWorker.COUNT_NAME : ShardWorker.COUNT_NAME_COUNTY);
+			out.writeUTF(name);
+			if (county != null) {
+				out.writeUTF(county);
+			}
+			out.flush();
+			int[][] reply = new int[in.readInt()][3];
+			for (int[] year : reply) {
+				year[0] = in.readInt();
+				year[1] = in.readInt();
+				year[2] = in.readInt();
+			}
+			return reply;
+		}
+	}
+
+	//the workers and the worker holding every year, in the order the years were first seen
+	protected ArrayList<Worker> workers = new ArrayList<Worker>();
+	protected LinkedHashMap<Integer, Integer> owner = new LinkedHashMap<Integer, Integer>();
+	//number of rows of every year
+	protected HashMap<Integer, Long> yearRows = new HashMap<Integer, Long>();
+	//threads that send a request to every worker at once
+	private ExecutorService pool = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "shard-scatter");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Default constructor that creates a coordinator without workers.
+	 */
+	public ShardCoordinator() {
+	}
+
+	/**
+	 * Method that starts a ShardWorker process on this host, with the same java and class
+	 * path as this process, and adds it.
+	 * @return number of years moved to the new worker
+	 * @throws IOException (thrown if the process cannot be started or connected to)
+	 */
+	public int startLocalWorker() throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				ShardWorker.class.getName(), "0");
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		Process process = builder.start();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		String line = reader.readLine();
+		if (line == null || !line.startsWith("Listening on port ")) {
+			process.destroy();
+			throw new IOException("The worker did not start.");
+		}
+		int port = Integer.parseInt(line.substring("Listening on port ".length()).trim());
+		return addWorker(new Worker(InetAddress.getLoopbackAddress().getHostAddress(), port, process));
+	}
+
+	/**
+	 * Method that adds a worker that is already running and moves years to it.
+	 * @param host (host of the worker) and port (port of the worker)
+	 * @return number of years moved to the new worker
+	 * @throws IOException (thrown if the worker cannot be connected to)
+	 */
+	public int addWorker(String host, int port) throws IOException {
+		return addWorker(new Worker(host, port, null));
+	}
+
+	/**
+	 * Helper method that adds a connected worker and rebalances.
+	 */
+	private synchronized int addWorker(Worker worker) throws IOException {
+		workers.add(worker);
+		return rebalance();
+	}
+
+	/**
+	 * Method that sends a row to the worker that holds its year. A year seen for the first
+	 * time goes to the worker with the fewest rows.
+	 * @param year (year the name belongs to) and name (Name object of the row)
+	 * @throws IllegalStateException (thrown if there are no workers)
+	 * @throws UncheckedIOException (thrown if the row cannot be sent)
+	 */
+	@Override
+	public synchronized void add(int year, Name name) {
+		if (workers.isEmpty()) {
+			throw new IllegalStateException("There are no workers to send the row to.");
+		}
+		Integer index = owner.get(year);
+		if (index == null) {
+			index = 0;
+			for (int i = 1; i < workers.size(); i++) {
+				if (workers.get(i).rows < workers.get(index).rows) {
+					index = i;
+				}
+			}
+			owner.put(year, index);
+		}
+		Worker worker = workers.get(index);
+		try {
+			synchronized (worker) {
+				ShardWorker.writeRow(worker.batchOut, year, name);
+				worker.batchRows++;
+				worker.rows++;
+				if (worker.batchRows >= BATCH_ROWS) {
+					worker.flush();
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		yearRows.merge(year, 1L, Long::sum);
+	}
+
+	/**
+	 * Method that sends the pending rows to every worker.
+	 * @throws IOException (thrown if a worker cannot be reached)
+	 */
+	public synchronized void flush() throws IOException {
+		for (Worker worker : workers) {
+			worker.flush();
+		}
+	}
+
+	/**
+	 * Method that moves whole years from the worker with the most rows to the one with the
+	 * fewest, as long as a move makes the larger of the two smaller.
+	 * @return number of years moved
+	 * @throws IOException (thrown if a worker cannot be reached)
+	 */
+	public synchronized int rebalance() throws IOException {
+		flush();
+		int moved = 0;
+		while (workers.size() > 1) {
+			int most = 0;
+			int least = 0;
+			for (int i = 1; i < workers.size(); i++) {
+				most = workers.get(i).rows > workers.get(most).rows ? i : most;
+				least = workers.get(i).rows < workers.get(least).rows ? i : least;
+			}
+			long gap = workers.get(most).rows - workers.get(least).rows;
+			//the year whose move leaves the two workers closest to each other
+			int best = -1;
+			long bestGap = gap;
+			for (Map.Entry<Integer, Integer> entry : owner.entrySet()) {
+				if (entry.getValue() == most) {
+					long rows = yearRows.get(entry.getKey());
+					long after = Math.abs(gap - 2 * rows);
+					if (after < bestGap) {
+						bestGap = after;
+						best = entry.getKey();
+					}
+				}
+			}
+			if (best < 0) {
+				break;
+			}
+			moveYear(best, most, least);
+			moved++;
+		}
+		return moved;
+	}
+
+	/**
+	 * Helper method that moves one year from a worker to another. The source keeps the year
+	 * until the target has confirmed that it holds it, so a failed move loses nothing.
+	 */
+	private void moveYear(int year, int from, int to) throws IOException {
+		Worker source = workers.get(from);
+		Worker target = workers.get(to);
+		int births;
+		int n;
+		byte[] rows;
+		synchronized (source) {
+			source.out.writeByte(ShardWorker.COPY_YEAR);
+			source.out.writeInt(year);
+			source.out.flush();
+			births = source.in.readInt();
+			n = source.in.readInt();
+			ByteArrayOutputStream copy = new ByteArrayOutputStream();
+			DataOutputStream copyOut = new DataOutputStream(copy);
+			for (int i = 0; i < n; i++) {
+				ShardWorker.writeRow(copyOut, source.in.readInt(), ShardWorker.readName(source.in));
+			}
+			copyOut.flush();
+			rows = copy.toByteArray();
+		}
+		synchronized (target) {
+			target.out.writeByte(ShardWorker.PUT_YEAR);
+			target.out.writeInt(year);
+			target.out.writeInt(births);
+			target.out.writeInt(n);
+			target.out.write(rows);
+			target.out.flush();
+			target.in.readInt();
+			target.rows += yearRows.get(year);
+		}
+		owner.put(year, to);
+		synchronized (source) {
+			source.out.writeByte(ShardWorker.DROP_YEAR);
+			source.out.writeInt(year);
+			source.out.flush();
+			source.in.readInt();
+			source.rows -= yearRows.get(year);
+		}
+	}
+
+	/**
+	 * Method that returns the number of babies with a name and the number of babies born,
+	 * for every year.
+	 * @param name (name to find)
+	 * @return per year in the order the years were first seen: {count, births}
+	 * @throws UncheckedIOException (thrown if a worker cannot be reached)
+	 */
+	public LinkedHashMap<Integer, long[]> getCountByName(String name) {
+		return scatter(name, null);
+	}
+
+	/**
+	 * Method that returns the number of babies with a name in a county and the number of
+	 * babies born in the county, for every year. The number born in the county is 0 in
+	 * the years without the name, where the workers skip counting it.
+	 * @param name (name to find) and county (county to find)
+	 * @return per year in the order the years were first seen: {count, births in county}
+	 * @throws UncheckedIOException (thrown if a worker cannot be reached)
+	 */
+	public LinkedHashMap<Integer, long[]> getCountByNameCounty(String name, String county) {
+		return scatter(name, county);
+	}
+
+	/**
+	 * Helper method that sends a count request to every worker at once and adds up the replies.
+	 */
+	private synchronized LinkedHashMap<Integer, long[]> scatter(final String name, final String county) {
+		ArrayList<Future<int[][]>> replies = new ArrayList<Future<int[][]>>();
+		for (final Worker worker : workers) {
+			replies.add(pool.submit(() -> worker.count(name, county)));
+		}
+		LinkedHashMap<Integer, long[]> merged = new LinkedHashMap<Integer, long[]>();
+		for (int year : owner.keySet()) {
+			merged.put(year, new long[2]);
+		}
+		try {
+			for (Future<int[][]> reply : replies) {
+				for (int[] year : reply.get()) {
+					long[] sum = merged.computeIfAbsent(year[0], y -> new long[2]);
+					sum[0] += year[1];
+					sum[1] += year[2];
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new IOException("Interrupted while waiting for the workers."));
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw new UncheckedIOException(cause instanceof IOException ? (IOException) cause : new IOException(cause));
+		}
+		return merged;
+	}
+
+	/**
+	 * Method that prints the histogram of a name, or of a name in a county, in the same
+	 * format as the interactive program.
+	 * @param name (name to find) and county (county to find, or ALL)
+	 * @return true if the name/county was found, false otherwise
+	 * @throws UncheckedIOException (thrown if a worker cannot be reached)
+	 */
+	public boolean printHistogram(String name, String county) {
+		boolean all = county.equalsIgnoreCase("all");
+		LinkedHashMap<Integer, long[]> counts = all ? getCountByName(name) : getCountByNameCounty(name, county);
+		boolean ispresent = false;
+		for (long[] count : counts.values()) {
+			ispresent |= count[0] > 0 && count[1] > 0;
+		}
+		if (!ispresent) {
+			System.out.println("No such name/county in the dataset.");
+			return false;
+		}
+		System.out.println("\n");
+		for (Map.Entry<Integer, long[]> entry : counts.entrySet()) {
+			long[] count = entry.getValue();
+			NYSBabyNames.printBar(String.valueOf(entry.getKey()), count[1] == 0 ? 0 : (double) count[0] / count[1]);
+		}
+		return true;
+	}
+
+	/**
+	 * Method that describes which worker holds which years.
+	 * @return one line per worker
+	 */
+	public synchronized String status() {
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < workers.size(); i++) {
+			ArrayList<Integer> years = new ArrayList<Integer>();
+			for (Map.Entry<Integer, Integer> entry : owner.entrySet()) {
+				if (entry.getValue() == i) {
+					years.add(entry.getKey());
+				}
+			}
+			s.append("Worker ").append(i).append(" (").append(workers.get(i).address).append("): ")
+					.append(workers.get(i).rows).append(" rows, years ").append(years).append("\n");
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Helper method that returns the number of workers.
+	 * @return number of workers
+	 */
+	public synchronized int workerCount() {
+		return workers.size();
+	}
+
+	/**
+	 * Stops the workers started by this coordinator and closes every connection.
+	 * @throws IOException (thrown if a connection cannot be closed)
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		for (Worker worker : workers) {
+			synchronized (worker) {
+				if (worker.process != null) {
+					try {
+						worker.out.writeByte(ShardWorker.STOP);
+						worker.out.flush();
+					} catch (IOException e) {
+						worker.process.destroy();
+					}
+				}
+				worker.socket.close();
+				if (worker.process != null) {
+					try {
+						worker.process.waitFor();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						worker.process.destroy();
+					}
+				}
+			}
+		}
+		workers.clear();
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,237 @@
+package project5;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+
+/**
+ * This class is a worker process of a sharded deployment. It holds the years that the
+ * ShardCoordinator gave it in a YearDirectory and answers the requests of the coordinator
+ * on a local socket. Every request starts with an operation byte:
+ *
+ *   LOAD int n, n rows                      -> int number of rows held
+ *   COUNT_NAME utf name                     -> int k, k times (int year, int count, int births)
+ *   COUNT_NAME_COUNTY utf name, utf county  -> int k, k times (int year, int count, int births in county)
+ *   YEARS                                   -> int k, k times (int year, int rows)
+ *   COPY_YEAR int year                      -> int births, int n, n rows; the worker keeps the year
+ *   PUT_YEAR int year, int births, int n, n rows -> int number of rows held
+ *   DROP_YEAR int year                      -> int number of rows held
+ *   STOP                                    -> the worker exits
+ *
+ * A row is int year, utf name, utf county, utf gender, int count. The rows held are the
+ * rows of the trees, so a row that repeats the name, county and gender of a row of its
+ * year is not counted. A year is moved by copying it (the rows of its tree and its
+ * number of births, which also counts the repeated rows), putting it on the other worker
+ * and only then dropping it, so a failed move leaves it where it was.
+ *
+ *   java project5.ShardWorker <port>
+ *
+ * Port 0 picks a free port. The worker prints the port it listens on as its first line.
+ * @author Sarah Wardles
+ *
+ */
+public class ShardWorker {
+
+	//operations of the protocol
+	public static final byte LOAD = 1;
+	public static final byte COUNT_NAME = 2;
+	public static final byte COUNT_NAME_COUNTY = 3;
+	public static final byte YEARS = 4;
+	public static final byte COPY_YEAR = 5;
+	public static final byte STOP = 6;
+	public static final byte PUT_YEAR = 7;
+	public static final byte DROP_YEAR = 8;
+
+	/**
+	 * The years of this worker. Unlike other directories a year can be handed back whole.
+	 */
+	private static class Shard extends YearDirectory {
+
+		/**
+		 * Helper method that drops a year from the directory.
+		 * @param year (year to drop)
+		 * @return the YearNames object of the year or null if it is not in the directory
+		 */
+		private YearNames removeYear(int year) {
+			YearNames found = getYear(year);
+			allYears.remove(found);
+			return found;
+		}
+	}
+
+	//the years held by this worker
+	private Shard shard = new Shard();
+
+	/**
+	 * Main method that starts a worker.
+	 * @param args
+	 *   the port to listen on
+	 */
+	public static void main(String[] args) {
+		int port = 0;
+		try {
+			port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+		} catch (NumberFormatException e) {
+			System.err.println("Usage Error: the port must be an integer.");
+			System.exit(1);
+		}
+		try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			System.out.println("Listening on port " + server.getLocalPort());
+			System.out.flush();
+			new ShardWorker().serve(server);
+		} catch (IOException e) {
+			System.err.println("Error: the worker failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Method that answers the coordinators that connect, one connection at a time, until a
+	 * STOP request arrives.
+	 * @param server (socket to accept connections on)
+	 * @throws IOException (thrown if the socket fails)
+	 */
+	public void serve(ServerSocket server) throws IOException {
+		while (true) {
+			try (Socket socket = server.accept()) {
+				socket.setTcpNoDelay(true);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				while (true) {
+					byte operation;
+					try {
+						operation = in.readByte();
+					} catch (EOFException e) {
+						//the coordinator went away, wait for the next one
+						break;
+					}
+					if (operation == STOP) {
+						return;
+					}
+					answer(operation, in, out);
+					out.flush();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper method that answers one request.
+	 * @param operation (operation of the request) and in (rest of the request) and out (reply)
+	 * @throws IOException (thrown if the socket fails or the operation is unknown)
+	 */
+	private void answer(byte operation, DataInputStream in, DataOutputStream out) throws IOException {
+		switch (operation) {
+		case LOAD:
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				int year = in.readInt();
+				shard.add(year, readName(in));
+			}
+			out.writeInt(rowsHeld());
+			break;
+		case COUNT_NAME:
+		case COUNT_NAME_COUNTY:
+			String name = in.readUTF();
+			String county = operation == COUNT_NAME_COUNTY ? in.readUTF() : null;
+			out.writeInt(shard.size());
+			for (YearNames year : shard) {
+				out.writeInt(year.getYear());
+				if (county == null) {
+					out.writeInt(year.getCountByName(name));
+					out.writeInt(year.totalBirths);
+				} else {
+					int count = year.getCountByNameCounty(name, county);
+					out.writeInt(count);
+					//like getFractionByNameCounty(), the county is only walked if the name is in it
+					out.writeInt(count == 0 ? 0 : year.allBabiesInCounty(county));
+				}
+			}
+			break;
+		case YEARS:
+			out.writeInt(shard.size());
+			for (YearNames year : shard) {
+				out.writeInt(year.getYear());
+				out.writeInt(year.size());
+			}
+			break;
+		case COPY_YEAR:
+			YearNames copied = shard.getYear(in.readInt());
+			ArrayList<Name> list = new ArrayList<Name>();
+			if (copied != null) {
+				copied.collect(list);
+			}
+			out.writeInt(copied == null ? 0 : copied.totalBirths);
+			out.writeInt(list.size());
+			for (Name row : list) {
+				writeRow(out, copied.getYear(), row);
+			}
+			break;
+		case PUT_YEAR:
+			int year = in.readInt();
+			int births = in.readInt();
+			n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				shard.add(in.readInt(), readName(in));
+			}
+			//the rows of a tree leave out repeated rows, the births of the year do not
+			YearNames put = shard.getYear(year);
+			if (put != null) {
+				put.totalBirths = births;
+			}
+			out.writeInt(rowsHeld());
+			break;
+		case DROP_YEAR:
+			shard.removeYear(in.readInt());
+			out.writeInt(rowsHeld());
+			break;
+		default:
+			throw new IOException("Unknown operation " + operation);
+		}
+	}
+
+	/**
+	 * Helper method that returns the number of rows in the trees of this worker.
+	 * @return number of rows held
+	 */
+	private int rowsHeld() {
+		int held = 0;
+		for (YearNames year : shard) {
+			held += year.size();
+		}
+		return held;
+	}
+
+	/**
+	 * Helper method that writes one row of the protocol.
+	 * @param out (stream to write to) and year (year of the row) and row (Name object of the row)
+	 * @throws IOException (thrown if the stream fails)
+	 */
+	public static void writeRow(DataOutputStream out, int year, Name row) throws IOException {
+		out.writeInt(year);
+		out.writeUTF(row.getName());
+		out.writeUTF(row.getCounty());
+		out.writeUTF(row.getGender());
+		out.writeInt(row.getCount());
+	}
+
+	/**
+	 * Helper method that reads the part of a row after the year.
+	 * @param in (stream to read from)
+	 * @return the Name object of the row
+	 * @throws IOException (thrown if the stream fails)
+	 */
+	public static Name readName(DataInputStream in) throws IOException {
+		String name = in.readUTF();
+		String county = in.readUTF();
+		String gender = in.readUTF();
+		return new Name(name, gender, in.readInt(), county);
+	}
+}
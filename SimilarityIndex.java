@@ -0,0 +1,383 @@
+package project5;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * This class finds the names whose popularity over the years is most like that of a
+ * given name. Every name gets a curve: its fraction of the births of every year of the
+ * directory. Two curves are compared either by their correlation, which only looks at the
+ * shape (a rare name that rose like Isabella counts as similar), or by their Euclidean
+ * distance, which also looks at the size of the fractions.
+ *
+ * Both are searched as Euclidean distances: for correlation the curves are first centered
+ * and scaled to length 1, and then the distance of two curves is sqrt(2 - 2r). Each kind
+ * of curve is indexed by a VPTree, but a tree only helps if it prunes: curves have one
+ * value per year, and in that many dimensions the distances often bunch together so that
+ * a search visits nearly every node, at a higher cost per curve than a plain scan. After
+ * building a tree the index therefore runs sample searches on it and drops it if they
+ * visit more than VISIT_LIMIT of its curves; below BRUTE_FORCE_LIMIT names no tree is
+ * built. Without a tree every curve is compared. The years are read, the curves computed
+ * and the trees built in parallel.
+ *
+ * The index is a copy of the directory at the time it was built; it does not see later changes.
+ * @author Sarah Wardles
+ *
+ */
+public class SimilarityIndex {
+
+	//ways to compare two curves
+	public static final int CORRELATION = 0;
+	public static final int EUCLIDEAN = 1;
+	//below this number of names a search compares every curve instead of using a tree
+	public static final int BRUTE_FORCE_LIMIT = 512;
+	//a tree is kept only if a sample search visits at most this share of its curves; a
+	//visit costs about twice the comparison of a scan (Benchmark similar)
+	public static final double VISIT_LIMIT = 0.5;
+	//number of sample searches, and names each of them finds like the name prompt
+	private static final int SAMPLE_SEARCHES = 32;
+	private static final int SAMPLE_K = 10;
+
+	/**
+	 * A name found by a search, with its distance to the curve searched for and the
+	 * correlation of the two curves.
+	 */
+	public static class Match {
+
+		private String name;
+		private double distance;
+		private double correlation;
+
+		protected Match(String name, double distance, double correlation) {
+			this.name = name;
+			this.distance = distance;
+			this.correlation = correlation;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public double getDistance() {
+			return distance;
+		}
+
+		public double getCorrelation() {
+			return correlation;
+		}
+	}
+
+	//years of the index in directory order
+	protected int[] years;
+	//id of every folded name and the spelling it was first seen with
+	protected HashMap<String, Integer> nameIds = new HashMap<String, Integer>();
+	protected ArrayList<String> names = new ArrayList<String>();
+	//per name one row of years.length values: its fractions, and its centered curve of length 1
+	protected double[] fractions;
+	protected double[] shapes;
+	//whether the fraction of every name changes over the years
+	protected boolean[] trend;
+	//ids of all names, and of the names whose fraction changes over the years
+	protected int[] allIds;
+	protected int[] trendIds;
+	//the trees, null below BRUTE_FORCE_LIMIT names or if they do not prune
+	protected VPTree fractionTree;
+	protected VPTree shapeTree;
+	//pool the index is built in
+	private ForkJoinPool pool;
+
+	/**
+	 * This is the constructor for the SimilarityIndex object. It is built on all processors.
+	 * @param directory (years to index)
+	 */
+	public SimilarityIndex(YearDirectory directory) {
+		this(directory, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * This is the constructor for the SimilarityIndex object.
+	 * @param directory (years to index) and pool (pool the index is built in)
+	 */
+	public SimilarityIndex(YearDirectory directory, ForkJoinPool pool) {
+		this.pool = pool;
+		years = directory.getYears();
+		int width = years.length;
+
+		//count every name of every year, one year per task
+		@SuppressWarnings("unchecked")
+		HashMap<String, int[]>[] counts = (HashMap<String, int[]>[]) new HashMap<?, ?>[width];
+		@SuppressWarnings("unchecked")
+		HashMap<String, String>[] spellings = (HashMap<String, String>[]) new HashMap<?, ?>[width];
+		int[] totals = new int[width];
+		forEach(width, 1, y -> {
+			YearNames year = directory.getYear(years[y]);
+			HashMap<String, int[]> yearCounts = new HashMap<String, int[]>();
+			HashMap<String, String> yearSpellings = new HashMap<String, String>();
+			for (Name name : year) {
+				String folded = Name.fold(name.getName());
+				int[] count = yearCounts.get(folded);
+				if (count == null) {
+					yearCounts.put(folded, count = new int[1]);
+					yearSpellings.put(folded, name.getName());
+				}
+				count[0] += name.getCount();
+			}
+			counts[y] = yearCounts;
+			spellings[y] = yearSpellings;
+			totals[y] = year.totalBirths;
+		});
+
+		//ids in name order, with the spelling of the first year the name is in
+		TreeMap<String, String> sorted = new TreeMap<String, String>();
+		for (HashMap<String, String> yearSpellings : spellings) {
+			for (Map.Entry<String, String> entry : yearSpellings.entrySet()) {
+				sorted.putIfAbsent(entry.getKey(), entry.getValue());
+			}
+		}
+		for (Map.Entry<String, String> entry : sorted.entrySet()) {
+			nameIds.put(entry.getKey(), names.size());
+			names.add(entry.getValue());
+		}
+
+		//the curves, one year per task and then one name per task
+		int size = names.size();
+		fractions = new double[size * width];
+		shapes = new double[size * width];
+		forEach(width, 1, y -> {
+			if (totals[y] == 0) {
+				return;
+			}
+			for (Map.Entry<String, int[]> entry : counts[y].entrySet()) {
+				fractions[nameIds.get(entry.getKey()) * width + y] = (double) entry.getValue()[0] / totals[y];
+			}
+		});
+		trend = new boolean[size];
+		forEach(size, 256, id -> trend[id] = normalize(id * width));
+
+		allIds = new int[size];
+		int trends = 0;
+		for (int id = 0; id < size; id++) {
+			allIds[id] = id;
+			trends += trend[id] ? 1 : 0;
+		}
+		trendIds = new int[trends];
+		trends = 0;
+		for (int id = 0; id < size; id++) {
+			if (trend[id]) {
+				trendIds[trends++] = id;
+			}
+		}
+
+		if (size >= BRUTE_FORCE_LIMIT) {
+			fractionTree = prunes(new VPTree(fractions, width, allIds, pool), fractions, allIds);
+			shapeTree = prunes(new VPTree(shapes, width, trendIds, pool), shapes, trendIds);
+		}
+	}
+
+	/**
+	 * Helper method that runs sample searches, for names spread evenly over the rows of a
+	 * tree, and checks how many curves they visit.
+	 * @param tree (tree to check) and curves, rows (the curves and the rows of the tree)
+	 * @return the tree, or null if the searches visit more than VISIT_LIMIT of its curves
+	 */
+	private VPTree prunes(VPTree tree, double[] curves, int[] rows) {
+		int samples = Math.min(SAMPLE_SEARCHES, rows.length);
+		long visits = 0;
+		for (int i = 0; i < samples; i++) {
+			int id = rows[(int) ((long) i * rows.length / samples)];
+			visits += tree.visits(curves, id * years.length, SAMPLE_K, id);
+		}
+		return samples > 0 && visits <= VISIT_LIMIT * samples * rows.length ? tree : null;
+	}
+
+	/**
+	 * Helper method that centers the curve of a name and scales it to length 1 in shapes[].
+	 * @param row (position of the curve)
+	 * @return false if the fraction of the name is the same every year, which has no shape
+	 */
+	private boolean normalize(int row) {
+		int width = years.length;
+		double mean = 0;
+		for (int y = 0; y < width; y++) {
+			mean += fractions[row + y];
+		}
+		mean /= width;
+		double length = 0;
+		for (int y = 0; y < width; y++) {
+			double centered = fractions[row + y] - mean;
+			shapes[row + y] = centered;
+			length += centered * centered;
+		}
+		length = Math.sqrt(length);
+		//fractions that only differ by rounding are the same fraction
+		if (length <= 1e-9 * mean) {
+			for (int y = 0; y < width; y++) {
+				shapes[row + y] = 0;
+			}
+			return false;
+		}
+		for (int y = 0; y < width; y++) {
+			shapes[row + y] /= length;
+		}
+		return true;
+	}
+
+	/**
+	 * Method that finds the names whose curves are most like the curve of a name.
+	 * @param name (name to compare with, compared ignoring case) and k (number of names to find)
+	 * @param metric (CORRELATION or EUCLIDEAN)
+	 * @return the names found, most similar first, without the name itself
+	 * @throws IllegalArgumentException (thrown if the name is not in the index, or has no
+	 * shape to correlate with because its fraction is the same every year)
+	 */
+	public ArrayList<Match> similar(String name, int k, int metric) {
+		return search(name, k, metric, false);
+	}
+
+	/**
+	 * Method that finds the same names as similar() by comparing every curve, without the trees.
+	 * @param name (name to compare with) and k (number of names to find) and metric (CORRELATION or EUCLIDEAN)
+	 * @return the names found, most similar first, without the name itself
+	 * @throws IllegalArgumentException (thrown like similar())
+	 */
+	public ArrayList<Match> bruteForce(String name, int k, int metric) {
+		return search(name, k, metric, true);
+	}
+
+	/**
+	 * Actual implementation of similar() and bruteForce().
+	 */
+	private ArrayList<Match> search(String name, int k, int metric, boolean bruteForce) {
+		Integer id = nameIds.get(Name.fold(name));
+		if (id == null) {
+			throw new IllegalArgumentException(name + " is not in the dataset.");
+		}
+		if (k < 1) {
+			throw new IllegalArgumentException("The number of names to find must be positive.");
+		}
+		int width = years.length;
+		boolean correlation = metric == CORRELATION;
+		double[] curves = correlation ? shapes : fractions;
+		int[] rows = correlation ? trendIds : allIds;
+		VPTree tree = correlation ? shapeTree : fractionTree;
+		if (correlation && !trend[id]) {
+			throw new IllegalArgumentException(names.get(id) + " has the same share of births every year, so it has no trend to compare.");
+		}
+
+		k = Math.min(k, rows.length);
+		int[] ids = new int[k];
+		double[] distances = new double[k];
+		int found;
+		if (bruteForce || tree == null) {
+			found = VPTree.bruteForce(curves, width, rows, curves, id * width, k, id, ids, distances);
+		} else {
+			found = tree.search(curves, id * width, k, id, ids, distances);
+		}
+		ArrayList<Match> matches = new ArrayList<Match>();
+		for (int i = 0; i < found; i++) {
+			matches.add(new Match(names.get(ids[i]), distances[i], correlation(id, ids[i])));
+		}
+		return matches;
+	}
+
+	/**
+	 * Method that returns the correlation of the curves of two names.
+	 * @param a, b (ids of the names)
+	 * @return correlation between -1 and 1, 0 if one of them has no trend
+	 */
+	protected double correlation(int a, int b) {
+		int width = years.length;
+		double sum = 0;
+		for (int y = 0; y < width; y++) {
+			sum += shapes[a * width + y] * shapes[b * width + y];
+		}
+		return sum;
+	}
+
+	/**
+	 * Method that returns the curve of a name: its fraction of the births of every year.
+	 * @param name (name to find, compared ignoring case)
+	 * @return fractions in the order of getYears(), or null if the name is not in the index
+	 */
+	public double[] curve(String name) {
+		Integer id = nameIds.get(Name.fold(name));
+		if (id == null) {
+			return null;
+		}
+		double[] curve = new double[years.length];
+		System.arraycopy(fractions, id * years.length, curve, 0, years.length);
+		return curve;
+	}
+
+	/**
+	 * Method that returns the years of the index in directory order.
+	 * @return array of years
+	 */
+	public int[] getYears() {
+		return years.clone();
+	}
+
+	/**
+	 * Method that returns the number of names in the index.
+	 * @return number of names
+	 */
+	public int size() {
+		return names.size();
+	}
+
+	/**
+	 * Method that returns whether searches with a metric use a tree.
+	 * @param metric (CORRELATION or EUCLIDEAN)
+	 * @return false if the index is too small for a tree or the tree did not prune, so
+	 * that every curve is compared
+	 */
+	public boolean hasTree(int metric) {
+		return (metric == CORRELATION ? shapeTree : fractionTree) != null;
+	}
+
+	/**
+	 * Helper method that runs a task for every number below count in the pool of the
+	 * index, in ranges of at most grain numbers per thread.
+	 */
+	private void forEach(int count, int grain, IntConsumer task) {
+		pool.invoke(new Chunk(0, count, grain, task));
+	}
+
+	/**
+	 * The task that runs the task of forEach() for a range of numbers, split in halves
+	 * until a range holds at most grain numbers.
+	 */
+	private static class Chunk extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int lo;
+		private int hi;
+		private int grain;
+		private IntConsumer task;
+
+		private Chunk(int lo, int hi, int grain, IntConsumer task) {
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+			this.task = task;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= grain) {
+				for (int i = lo; i < hi; i++) {
+					task.accept(i);
+				}
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new Chunk(lo, mid, grain, task), new Chunk(mid, hi, grain, task));
+		}
+	}
+}
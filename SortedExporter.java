@@ -0,0 +1,286 @@
+package project5;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * This class writes the rows of a directory to a file sorted by name, county, gender and
+ * year (names, counties and genders ignoring case), optionally only the rows that match
+ * a Query. Every year is already sorted by name, county and gender, so the exporter keeps
+ * one cursor (an iterator) per year and merges them: a heap of the cursors hands out the
+ * smallest row, and only that cursor moves on. Nothing is sorted or collected, so besides
+ * the years themselves the memory used is one row per year plus the output buffer,
+ * whatever the size of the dataset.
+ *
+ * The rows go through one large buffer straight into a FileChannel, either as CSV in the
+ * format the program reads, or in binary: the magic number, the number of years and per
+ * year the year and its births, then per row the year, the name, the county and the
+ * gender as DataInput.readUTF() strings, and the count.
+ *
+ * The trees only keep the first of several rows with the same name, county and gender in
+ * a year, while the births of the year count every row. The binary format keeps those
+ * births in its table of years; a CSV has no place for them, so a year whose exported
+ * counts do not add up to its births is reported, because loading the CSV again changes
+ * its fractions. A CSV loaded again also lists its years in the order they are first
+ * seen, which in a sorted export is not the order of the years.
+ * @author Sarah Wardles
+ *
+ */
+public class SortedExporter {
+
+	//first int of a binary export
+	public static final int MAGIC = 0x4E59534F; // "NYSO"
+	//size of the output buffer
+	public static final int BUFFER_SIZE = 4 << 20;
+	//first line of a CSV export
+	private static final String HEADER = "Year,First Name,County,Sex,Count\n";
+
+	/**
+	 * The cursor over one year: the year and its next row.
+	 */
+	private static class Cursor implements Comparable<Cursor> {
+
+		private int year;
+		private Iterator<Name> rows;
+		private Name row;
+		//babies in the rows of the year written so far
+		private long births = 0;
+
+		private Cursor(int year, Iterator<Name> rows) {
+			this.year = year;
+			this.rows = rows;
+		}
+
+		/**
+		 * Moves to the next row of the year that matches a filter.
+		 * @return false if the year has no more rows
+		 */
+		private boolean advance(Query filter) {
+			while (rows.hasNext()) {
+				row = rows.next();
+				if (filter == null || filter.matches(row)) {
+					return true;
+				}
+			}
+			row = null;
+			return false;
+		}
+
+		@Override
+		public int compareTo(Cursor other) {
+			int compare = row.compareTo(other.row);
+			return compare != 0 ? compare : Integer.compare(year, other.year);
+		}
+	}
+
+	//what to export and how
+	protected YearDirectory directory;
+	protected Query filter;
+	protected boolean binary;
+	//the output
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private CharsetEncoder encoder;
+	private StringBuilder line = new StringBuilder();
+	//results of the last export
+	protected long rows = 0;
+	protected long bytes = 0;
+	protected long elapsedNanos = 0;
+	//per year of the last export whose rows leave births out: {year, births left out}
+	protected ArrayList<long[]> missingBirths = new ArrayList<long[]>();
+
+	/**
+	 * This is the constructor for the SortedExporter object.
+	 * @param directory (years to export) and filter (query the rows must match, null for all rows)
+	 * @param binary (true for the binary format, false for CSV)
+	 */
+	public SortedExporter(YearDirectory directory, Query filter, boolean binary) {
+		this.directory = directory;
+		this.filter = filter;
+		this.binary = binary;
+	}
+
+	/**
+	 * Method that writes the rows to a file, replacing it if it exists.
+	 * @param file (file to write)
+	 * @return number of rows written
+	 * @throws IOException (thrown if the file cannot be written)
+	 */
+	public long export(File file) throws IOException {
+		long start = System.nanoTime();
+		rows = 0;
+		bytes = 0;
+		missingBirths.clear();
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		encoder = StandardCharsets.UTF_8.newEncoder();
+		try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			channel = out;
+			ArrayList<YearNames> years = new ArrayList<YearNames>();
+			for (YearNames year : directory) {
+				if (filter == null || filter.matchesYear(year.getYear())) {
+					years.add(year);
+				}
+			}
+			if (binary) {
+				buffer.putInt(MAGIC);
+				buffer.putInt(years.size());
+				for (YearNames year : years) {
+					reserve(8);
+					buffer.putInt(year.getYear());
+					buffer.putInt(year.totalBirths);
+				}
+			} else {
+				putChars(HEADER);
+			}
+
+			ArrayList<Cursor> cursors = new ArrayList<Cursor>();
+			PriorityQueue<Cursor> heap = new PriorityQueue<Cursor>();
+			for (YearNames year : years) {
+				Cursor cursor = new Cursor(year.getYear(), year.iterator());
+				cursors.add(cursor);
+				if (cursor.advance(filter)) {
+					heap.add(cursor);
+				}
+			}
+			while (!heap.isEmpty()) {
+				Cursor cursor = heap.poll();
+				write(cursor.year, cursor.row);
+				cursor.births += cursor.row.getCount();
+				rows++;
+				if (cursor.advance(filter)) {
+					heap.add(cursor);
+				}
+			}
+			flush();
+
+			//a filtered export leaves rows out on purpose, so only whole years are checked
+			for (int i = 0; i < cursors.size() && filter == null; i++) {
+				long missing = years.get(i).totalBirths - cursors.get(i).births;
+				if (missing != 0) {
+					missingBirths.add(new long[] {cursors.get(i).year, missing});
+				}
+			}
+		} finally {
+			channel = null;
+			buffer = null;
+		}
+		elapsedNanos = System.nanoTime() - start;
+		return rows;
+	}
+
+	/**
+	 * Method that prints the size and the speed of the last export, and for a CSV export
+	 * the years whose rows leave births out.
+	 */
+	public void printReport() {
+		double megabytes = bytes / 1048576.0;
+		System.out.printf("Exported %d rows (%.1f MB) in %.2f s: %.1f MB/s\n", rows, megabytes, elapsedNanos / 1e9,
+				megabytes / Math.max(elapsedNanos / 1e9, 1e-9));
+		if (!binary) {
+			for (long[] missing : missingBirths) {
+				System.err.println("Warning: " + missing[0] + " has " + missing[1] + " births in repeated rows that the CSV"
+						+ " leaves out, so its fractions change if the export is loaded again.");
+			}
+		}
+	}
+
+	/**
+	 * Method that returns the years of the last export whose rows do not add up to their births.
+	 * @return per year {year, births left out}
+	 */
+	public ArrayList<long[]> getMissingBirths() {
+		return new ArrayList<long[]>(missingBirths);
+	}
+
+	/**
+	 * Helper method that writes one row in the format of the export.
+	 */
+	private void write(int year, Name row) throws IOException {
+		if (binary) {
+			reserve(4);
+			buffer.putInt(year);
+			putUTF(row.getName());
+			putUTF(row.getCounty());
+			putUTF(row.getGender());
+			reserve(4);
+			buffer.putInt(row.getCount());
+		} else {
+			line.setLength(0);
+			line.append(year).append(',').append(row.getName()).append(',').append(row.getCounty()).append(',')
+					.append(row.getGender()).append(',').append(row.getCount()).append('\n');
+			putChars(line);
+		}
+	}
+
+	/**
+	 * Helper method that writes a string as DataOutput.writeUTF() does: its length in bytes
+	 * and its characters in modified UTF-8.
+	 */
+	private void putUTF(String s) throws IOException {
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			length += c >= 1 && c <= 0x7F ? 1 : c <= 0x7FF ? 2 : 3;
+		}
+		if (length > 65535) {
+			throw new IOException("A string is too long to export: " + s.substring(0, 20) + "...");
+		}
+		reserve(2 + length);
+		buffer.putShort((short) length);
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c >= 1 && c <= 0x7F) {
+				buffer.put((byte) c);
+			} else if (c <= 0x7FF) {
+				buffer.put((byte) (0xC0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			} else {
+				buffer.put((byte) (0xE0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	/**
+	 * Helper method that writes characters in UTF-8, flushing the buffer whenever it fills up.
+	 */
+	private void putChars(CharSequence chars) throws IOException {
+		CharBuffer in = CharBuffer.wrap(chars);
+		while (encoder.encode(in, buffer, false) == CoderResult.OVERFLOW) {
+			flush();
+		}
+	}
+
+	/**
+	 * Helper method that makes room for a number of bytes in the buffer.
+	 */
+	private void reserve(int size) throws IOException {
+		if (buffer.remaining() < size) {
+			flush();
+		}
+	}
+
+	/**
+	 * Helper method that writes the buffer to the channel and empties it.
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		bytes += buffer.remaining();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
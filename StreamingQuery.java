@@ -0,0 +1,136 @@
+package project5;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * This class answers one (name) or (name, county) query while the rows of the CSV file
+ * stream past, without building any tree. For a name query it only keeps, for every year,
+ * the number of babies with the name and the total the fraction is taken of, so its memory
+ * depends on the number of years and not on the number of rows. A (name, county) query
+ * also keeps the names and genders seen in the county, one entry per distinct row of it.
+ *
+ * The fractions are the ones of YearNames.getFractionByName() and
+ * YearNames.getFractionByNameCounty(). A row whose name, county and gender were already
+ * seen in that year is ignored for the name count and for the county total, just like
+ * the tree ignores duplicates; the total of a year counts every row, like totalBirths.
+ * @author Sarah Wardles
+ *
+ */
+public class StreamingQuery implements NameSink {
+
+	//the query
+	protected String name;
+	protected String county;
+	//years in the order they were first seen
+	protected ArrayList<Integer> years = new ArrayList<Integer>();
+	//per year: babies with the name and babies the fraction is taken of
+	protected ArrayList<int[]> counts = new ArrayList<int[]>();
+	//per year: county and gender of the rows that matched, to skip duplicates
+	protected ArrayList<HashSet<String>> matched = new ArrayList<HashSet<String>>();
+	//per year: name and gender of the rows in the county, to skip duplicates in its total
+	protected ArrayList<HashSet<String>> inCountyRows = new ArrayList<HashSet<String>>();
+	//index of the year of the previous row, rows of one year usually come together
+	private int last = -1;
+
+	/**
+	 * This is the constructor for the StreamingQuery object.
+	 * @param name (name to find)
+	 * @param county (county to find, or ALL or null for every county)
+	 */
+	public StreamingQuery(String name, String county) {
+		this.name = name;
+		this.county = county == null || county.equalsIgnoreCase("all") ? null : county;
+	}
+
+	/**
+	 * Method that adds one row to the running counts.
+	 * @param year (year the name belongs to) and row (Name object of the row)
+	 */
+	@Override
+	public void add(int year, Name row) {
+		int i = indexOf(year);
+		int[] count = counts.get(i);
+		boolean inCounty = county == null || county.equalsIgnoreCase(row.getCounty());
+		//the total of a year counts every row, the total of a county its distinct rows
+		if (county == null) {
+			count[1] += row.getCount();
+		} else if (inCounty) {
+			if (!inCountyRows.get(i).add(Name.fold(row.getName()) + "," + Name.fold(row.getGender()))) {
+				return;
+			}
+			count[1] += row.getCount();
+		}
+		if (inCounty && name.equalsIgnoreCase(row.getName())) {
+			if (matched.get(i).add(Name.fold(row.getCounty()) + "," + Name.fold(row.getGender()))) {
+				count[0] += row.getCount();
+			}
+		}
+	}
+
+	/**
+	 * Helper method that finds the position of a year, adding it if it was not seen yet.
+	 * @param year (year to find)
+	 * @return index into the running counts
+	 */
+	private int indexOf(int year) {
+		if (last >= 0 && years.get(last) == year) {
+			return last;
+		}
+		last = years.indexOf(year);
+		if (last < 0) {
+			last = years.size();
+			years.add(year);
+			counts.add(new int[2]);
+			matched.add(new HashSet<String>());
+			inCountyRows.add(new HashSet<String>());
+		}
+		return last;
+	}
+
+	/**
+	 * Method that returns the fraction of the query in a year.
+	 * @param year (year to find)
+	 * @return fraction or 0 if the year was not seen
+	 */
+	public double getFraction(int year) {
+		int i = years.indexOf(year);
+		if (i < 0 || counts.get(i)[1] == 0) {
+			return 0;
+		}
+		return (double) counts.get(i)[0] / counts.get(i)[1];
+	}
+
+	/**
+	 * Method that returns the years seen so far in the order they were first seen.
+	 * @return array of years
+	 */
+	public int[] getYears() {
+		int[] all = new int[years.size()];
+		for (int i = 0; i < all.length; i++) {
+			all[i] = years.get(i);
+		}
+		return all;
+	}
+
+	/**
+	 * Method that prints the final histogram once the stream has ended, in the same format
+	 * as the interactive program.
+	 * @return true if the name/county was found, false otherwise
+	 */
+	public boolean printHistogram() {
+		boolean ispresent = false;
+		for (int year : getYears()) {
+			ispresent |= getFraction(year) > 0;
+		}
+		if (!ispresent) {
+			System.out.println("No such name/county in the dataset.");
+			return false;
+		}
+		System.out.println("\n");
+		for (int year : getYears()) {
+			NYSBabyNames.printBar(String.valueOf(year), getFraction(year));
+		}
+		return true;
+	}
+}
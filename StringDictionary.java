@@ -0,0 +1,63 @@
+package project5;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class assigns small integer ids to strings so that data structures can store an
+ * int instead of a reference to a String. Ids are handed out in order of first appearance
+ * and the strings are compared exactly (the case is kept). The dictionary is not thread
+ * safe; it is filled by the thread that loads the data.
+ * @author Sarah Wardles
+ *
+ */
+public class StringDictionary {
+
+	//id of every string in the dictionary
+	private HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	//string of every id in the dictionary
+	private ArrayList<String> strings = new ArrayList<String>();
+
+	/**
+	 * Method that returns the id of a string, adding the string to the dictionary if it
+	 * is not in it yet.
+	 * @param s (string to find or add)
+	 * @return id of the string
+	 */
+	public int idOf(String s) {
+		Integer id = ids.get(s);
+		if (id == null) {
+			id = strings.size();
+			ids.put(s, id);
+			strings.add(s);
+		}
+		return id;
+	}
+
+	/**
+	 * Method that returns the id of a string without adding it.
+	 * @param s (string to find)
+	 * @return id of the string or -1 if it is not in the dictionary
+	 */
+	public int find(String s) {
+		Integer id = ids.get(s);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Method that returns the string that belongs to an id.
+	 * @param id (id handed out by idOf())
+	 * @return the string
+	 */
+	public String get(int id) {
+		return strings.get(id);
+	}
+
+	/**
+	 * Helper method that returns the number of strings in the dictionary.
+	 * @return number of strings
+	 */
+	public int size() {
+		return strings.size();
+	}
+}
@@ -0,0 +1,354 @@
+package project5;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class is a vantage point tree over vectors of equal length that finds the k
+ * vectors nearest to a query vector by Euclidean distance. Every node picks one vector
+ * (the vantage point) and splits the others at the median of their distance to it into
+ * an inside and an outside half; a search skips a half when the triangle inequality
+ * shows that nothing in it can be closer than the k-th match found so far.
+ *
+ * The vectors are rows of one flat array (row i at i * dimensions) and the tree is kept
+ * in three arrays instead of node objects: the node of the range [lo, hi) of order[] has
+ * its vantage point at order[lo], its inside half at [lo + 1, middle[lo]) and its outside
+ * half at [middle[lo], hi), split at radius[lo]. The halves are built in parallel.
+ * @author Sarah Wardles
+ *
+ */
+public class VPTree {
+
+	//ranges smaller than this are built by the thread that split them
+	private static final int PARALLEL_THRESHOLD = 4096;
+
+	//the vectors, one row per id
+	protected double[] vectors;
+	protected int dimensions;
+	//the tree: ids in tree order, and the split of every node
+	protected int[] order;
+	protected int[] middle;
+	protected double[] radius;
+	//distance of every id of a range to the vantage point of the range, used while building
+	private double[] scratch;
+
+	/**
+	 * This is the constructor for the VPTree object. It builds the tree over some rows of
+	 * the array; the array is not copied, so its rows must not change afterwards.
+	 * @param vectors (rows of dimensions values) and dimensions (length of a row)
+	 * @param ids (rows to put into the tree)
+	 * @param pool (pool the tree is built in)
+	 */
+	public VPTree(double[] vectors, int dimensions, int[] ids, ForkJoinPool pool) {
+		this.vectors = vectors;
+		this.dimensions = dimensions;
+		this.order = ids.clone();
+		this.middle = new int[ids.length];
+		this.radius = new double[ids.length];
+		this.scratch = new double[ids.length];
+		pool.invoke(new Build(0, ids.length));
+		scratch = null;
+	}
+
+	/**
+	 * Method that returns the number of vectors in the tree.
+	 * @return number of vectors
+	 */
+	public int size() {
+		return order.length;
+	}
+
+	/**
+	 * Method that finds the k rows of the tree nearest to a query vector.
+	 * @param query (array holding the query vector) and offset (position of the vector in it)
+	 * @param k (number of rows to find) and exclude (row to leave out, -1 for none)
+	 * @param ids (filled with the rows found, nearest first) and distances (filled with their distances)
+	 * @return number of rows found, at most k
+	 */
+	public int search(double[] query, int offset, int k, int exclude, int[] ids, double[] distances) {
+		TopK top = new TopK(k);
+		search(0, order.length, query, offset, exclude, top);
+		return top.drain(ids, distances);
+	}
+
+	/**
+	 * Method that runs a search like search() and counts the rows it compares the query
+	 * with. Compared with the size of the tree this shows how much the tree prunes: with
+	 * many dimensions the distances bunch together and a search visits most of the tree.
+	 * @param query (array holding the query vector) and offset (position of the vector in it)
+	 * @param k (number of rows to find) and exclude (row to leave out, -1 for none)
+	 * @return number of rows compared with the query
+	 */
+	public int visits(double[] query, int offset, int k, int exclude) {
+		TopK top = new TopK(k);
+		search(0, order.length, query, offset, exclude, top);
+		return top.visited;
+	}
+
+	/**
+	 * Actual recursive implementation of search. The half the query falls into is searched
+	 * first, because it is the one most likely to shrink the distance to beat.
+	 */
+	private void search(int lo, int hi, double[] query, int offset, int exclude, TopK top) {
+		if (lo >= hi) {
+			return;
+		}
+		int vantage = order[lo];
+		double distance = distance(query, offset, vectors, vantage * dimensions, dimensions);
+		top.visited++;
+		if (vantage != exclude) {
+			top.offer(vantage, distance);
+		}
+		double split = radius[lo];
+		int mid = middle[lo];
+		if (distance <= split) {
+			if (distance - top.bound() <= split) {
+				search(lo + 1, mid, query, offset, exclude, top);
+			}
+			if (distance + top.bound() >= split) {
+				search(mid, hi, query, offset, exclude, top);
+			}
+		} else {
+			if (distance + top.bound() >= split) {
+				search(mid, hi, query, offset, exclude, top);
+			}
+			if (distance - top.bound() <= split) {
+				search(lo + 1, mid, query, offset, exclude, top);
+			}
+		}
+	}
+
+	/**
+	 * Method that finds the k rows nearest to a query vector by comparing it with every
+	 * row. The rows are read in order from one array, so the loop streams through memory
+	 * and the compiler can vectorize the distance; for small sets of rows it is faster
+	 * than a tree.
+	 * @param vectors (rows of dimensions values) and dimensions (length of a row)
+	 * @param rows (rows to compare with) and query, offset (query vector and its position)
+	 * @param k (number of rows to find) and exclude (row to leave out, -1 for none)
+	 * @param ids (filled with the rows found, nearest first) and distances (filled with their distances)
+	 * @return number of rows found, at most k
+	 */
+	public static int bruteForce(double[] vectors, int dimensions, int[] rows, double[] query, int offset, int k,
+			int exclude, int[] ids, double[] distances) {
+		TopK top = new TopK(k);
+		for (int row : rows) {
+			if (row == exclude) {
+				continue;
+			}
+			double squared = squaredDistance(query, offset, vectors, row * dimensions, dimensions);
+			double bound = top.bound();
+			if (squared < bound * bound) {
+				top.offer(row, Math.sqrt(squared));
+			}
+		}
+		return top.drain(ids, distances);
+	}
+
+	/**
+	 * Method that returns the Euclidean distance of two vectors.
+	 * @param a, aOffset (first vector and its position) and b, bOffset (second vector and its position)
+	 * @param dimensions (length of the vectors)
+	 * @return the distance
+	 */
+	public static double distance(double[] a, int aOffset, double[] b, int bOffset, int dimensions) {
+		return Math.sqrt(squaredDistance(a, aOffset, b, bOffset, dimensions));
+	}
+
+	/**
+	 * Helper method that returns the squared Euclidean distance of two vectors.
+	 */
+	private static double squaredDistance(double[] a, int aOffset, double[] b, int bOffset, int dimensions) {
+		double sum = 0;
+		for (int i = 0; i < dimensions; i++) {
+			double difference = a[aOffset + i] - b[bOffset + i];
+			sum += difference * difference;
+		}
+		return sum;
+	}
+
+	/**
+	 * The task that builds the node of a range and then its two halves. Ranges do not
+	 * overlap, so the tasks write to disjoint parts of the arrays.
+	 */
+	private class Build extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int lo;
+		private int hi;
+
+		private Build(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo < PARALLEL_THRESHOLD) {
+				build(lo, hi);
+				return;
+			}
+			int mid = split(lo, hi);
+			invokeAll(new Build(lo + 1, mid), new Build(mid, hi));
+		}
+	}
+
+	/**
+	 * Helper method that builds the node of a range and its halves on this thread.
+	 */
+	private void build(int lo, int hi) {
+		while (hi - lo > 1) {
+			int mid = split(lo, hi);
+			build(lo + 1, mid);
+			lo = mid;
+		}
+		if (hi - lo == 1) {
+			middle[lo] = hi;
+		}
+	}
+
+	/**
+	 * Helper method that picks a random vantage point for a range, moves it to the front
+	 * and splits the rest of the range at the median distance to it.
+	 * @return the first position of the outside half
+	 */
+	private int split(int lo, int hi) {
+		swap(lo, ThreadLocalRandom.current().nextInt(lo, hi));
+		int vantage = order[lo] * dimensions;
+		for (int i = lo + 1; i < hi; i++) {
+			scratch[i] = distance(vectors, vantage, vectors, order[i] * dimensions, dimensions);
+		}
+		int mid = (lo + 1 + hi) >>> 1;
+		select(lo + 1, hi, mid);
+		middle[lo] = mid;
+		radius[lo] = scratch[mid];
+		return mid;
+	}
+
+	/**
+	 * Helper method that partially sorts a range by distance so that position target holds
+	 * the distance it would hold if the range were sorted, with smaller distances before it
+	 * and larger ones after it.
+	 */
+	private void select(int lo, int hi, int target) {
+		hi--;
+		while (lo < hi) {
+			double pivot = scratch[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (scratch[i] < pivot) {
+					i++;
+				}
+				while (scratch[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(i++, j--);
+				}
+			}
+			if (target <= j) {
+				hi = j;
+			} else if (target >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Helper method that swaps two positions of the tree and of the distances.
+	 */
+	private void swap(int i, int j) {
+		int id = order[i];
+		order[i] = order[j];
+		order[j] = id;
+		double distance = scratch[i];
+		scratch[i] = scratch[j];
+		scratch[j] = distance;
+	}
+
+	/**
+	 * The k nearest rows found so far, kept in a max-heap on the distance so that the
+	 * farthest of them, the distance to beat, is at the top.
+	 */
+	private static class TopK {
+
+		private int[] ids;
+		private double[] distances;
+		private int size = 0;
+		//number of rows compared with the query
+		private int visited = 0;
+
+		private TopK(int k) {
+			ids = new int[k];
+			distances = new double[k];
+		}
+
+		/**
+		 * Returns the distance a row has to beat to be kept.
+		 */
+		private double bound() {
+			return size < ids.length ? Double.POSITIVE_INFINITY : distances[0];
+		}
+
+		/**
+		 * Keeps a row if it is among the k nearest so far.
+		 */
+		private void offer(int id, double distance) {
+			if (size < ids.length) {
+				int i = size++;
+				while (i > 0 && distances[(i - 1) / 2] < distance) {
+					ids[i] = ids[(i - 1) / 2];
+					distances[i] = distances[(i - 1) / 2];
+					i = (i - 1) / 2;
+				}
+				ids[i] = id;
+				distances[i] = distance;
+			} else if (distance < distances[0]) {
+				siftDown(id, distance);
+			}
+		}
+
+		/**
+		 * Replaces the top of the heap and moves the new row down to its place.
+		 */
+		private void siftDown(int id, double distance) {
+			int i = 0;
+			while (2 * i + 1 < size) {
+				int child = 2 * i + 1;
+				if (child + 1 < size && distances[child + 1] > distances[child]) {
+					child++;
+				}
+				if (distances[child] <= distance) {
+					break;
+				}
+				ids[i] = ids[child];
+				distances[i] = distances[child];
+				i = child;
+			}
+			ids[i] = id;
+			distances[i] = distance;
+		}
+
+		/**
+		 * Copies the rows out nearest first and empties the heap.
+		 * @return number of rows
+		 */
+		private int drain(int[] outIds, double[] outDistances) {
+			int found = size;
+			for (int n = found - 1; n >= 0; n--) {
+				outIds[n] = ids[0];
+				outDistances[n] = distances[0];
+				size--;
+				if (size > 0) {
+					siftDown(ids[size], distances[size]);
+				}
+			}
+			return found;
+		}
+	}
+}
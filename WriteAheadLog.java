@@ -0,0 +1,369 @@
+package project5;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append only log of the changes made to a YearDirectory. Every change
+ * is written as one record:
+ *
+ *   int length, int crc32 of the payload, payload
+ *   payload: long sequence number, byte operation, int year,
+ *            utf name, utf county, utf gender, int count
+ *
+ * Records are collected in memory and a background thread writes and fsyncs them in
+ * groups: a group is committed when it holds batchRecords records or when its oldest
+ * record has waited batchMillis milliseconds, so many changes share one fsync.
+ * @author Sarah Wardles
+ *
+ */
+public class WriteAheadLog implements Closeable {
+
+	//operations stored in a record
+	public static final byte ADD = 1;
+	public static final byte REMOVE = 2;
+
+	//the open log file
+	private FileChannel channel;
+	//records that are waiting for the next group commit
+	private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private int pendingRecords = 0;
+	//time at which the oldest pending record was appended
+	private long pendingSince = 0;
+	//sequence number of the next record and of the last record that is on disk
+	private long nextSequence;
+	private long durableSequence;
+	//last sequence number that flush() wants on disk without waiting for a full group
+	private long flushSequence;
+	//group commit settings
+	private int batchRecords;
+	private long batchMillis;
+	//number of records and group commits written since the log was opened
+	private long records = 0;
+	private long commits = 0;
+	//set when the log is closed or when writing failed
+	private boolean closed = false;
+	private IOException failure = null;
+	//background thread that performs the group commits
+	private Thread committer;
+
+	/**
+	 * This is the constructor for the WriteAheadLog object. It opens the file for appending
+	 * and starts the thread that commits the records.
+	 * @param file (log file, created if it does not exist)
+	 * @param firstSequence (sequence number of the next record)
+	 * @param batchRecords (maximum number of records in a group commit, must be positive)
+	 * @param batchMillis (maximum time a record waits for its group commit, must be positive)
+	 * @throws IOException (thrown if the file cannot be opened)
+	 * @throws IllegalArgumentException (thrown if the batch settings are not positive)
+	 */
+	public WriteAheadLog(File file, long firstSequence, int batchRecords, long batchMillis) throws IOException {
+		if (batchRecords < 1 || batchMillis < 1) {
+			throw new IllegalArgumentException("The program must take positive group commit settings as parameters.");
+		}
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.nextSequence = firstSequence;
+		this.durableSequence = firstSequence - 1;
+		this.flushSequence = firstSequence - 1;
+		this.batchRecords = batchRecords;
+		this.batchMillis = batchMillis;
+		this.committer = new Thread(this::commitLoop, "wal-committer");
+		this.committer.setDaemon(true);
+		this.committer.start();
+	}
+
+	/**
+	 * Method that appends a change to the log. The change is on disk after the next group
+	 * commit; call awaitDurable() with the returned sequence number to wait for it.
+	 * @param operation (ADD or REMOVE) and year (year of the change) and name (Name object of the change)
+	 * @return sequence number of the record
+	 * @throws IOException (thrown if the log is closed or a previous commit failed)
+	 */
+	public synchronized long append(byte operation, int year, Name name) throws IOException {
+		checkOpen();
+		long sequence = nextSequence++;
+		byte[] record = encode(sequence, operation, year, name);
+		pending.write(record, 0, record.length);
+		if (pendingRecords == 0) {
+			pendingSince = System.currentTimeMillis();
+		}
+		pendingRecords++;
+		//wake the committer to start the timer of a new group or to commit a full one
+		if (pendingRecords == 1 || pendingRecords >= batchRecords) {
+			notifyAll();
+		}
+		return sequence;
+	}
+
+	/**
+	 * Method that waits until the record with the given sequence number is on disk.
+	 * @param sequence (sequence number returned by append())
+	 * @throws IOException (thrown if the commit failed or the thread was interrupted)
+	 */
+	public synchronized void awaitDurable(long sequence) throws IOException {
+		while (durableSequence < sequence) {
+			if (failure != null) {
+				throw failure;
+			}
+			if (closed) {
+				throw new IOException("The log was closed before the record was committed.");
+			}
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the log.");
+			}
+		}
+	}
+
+	/**
+	 * Method that commits every pending record and waits until they are on disk.
+	 * @throws IOException (thrown if the commit failed)
+	 */
+	public void flush() throws IOException {
+		long last;
+		synchronized (this) {
+			last = nextSequence - 1;
+			flushSequence = last;
+			notifyAll();
+		}
+		awaitDurable(last);
+	}
+
+	/**
+	 * Helper method that returns the sequence number the next record will get.
+	 * @return next sequence number
+	 */
+	public synchronized long nextSequence() {
+		return nextSequence;
+	}
+
+	/**
+	 * Helper method that returns the number of records written since the log was opened.
+	 * @return number of records
+	 */
+	public synchronized long records() {
+		return records;
+	}
+
+	/**
+	 * Helper method that returns the number of group commits (fsyncs) since the log was opened.
+	 * @return number of commits
+	 */
+	public synchronized long commits() {
+		return commits;
+	}
+
+	/**
+	 * Commits every pending record, stops the committer thread and closes the file.
+	 * @throws IOException (thrown if the last commit or closing the file failed)
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+		}
+		IOException error = null;
+		try {
+			flush();
+		} catch (IOException e) {
+			error = e;
+		}
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		try {
+			committer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Helper method that throws if the log cannot take records anymore.
+	 * @throws IOException (thrown if the log is closed or a previous commit failed)
+	 */
+	private void checkOpen() throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+		if (closed) {
+			throw new IOException("The log is closed.");
+		}
+	}
+
+	/**
+	 * Body of the committer thread: waits for a full group or for the oldest record to
+	 * time out, then writes and fsyncs the whole group at once.
+	 */
+	private void commitLoop() {
+		while (true) {
+			byte[] group;
+			long last;
+			synchronized (this) {
+				try {
+					while (pendingRecords == 0 || (pendingRecords < batchRecords && !flushRequested())) {
+						if (closed && pendingRecords == 0) {
+							return;
+						}
+						long waited = System.currentTimeMillis() - pendingSince;
+						if (pendingRecords > 0 && waited >= batchMillis) {
+							break;
+						}
+						wait(pendingRecords == 0 ? 0 : batchMillis - waited);
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+				group = pending.toByteArray();
+				pending.reset();
+				records += pendingRecords;
+				pendingRecords = 0;
+				last = nextSequence - 1;
+			}
+
+			try {
+				ByteBuffer buffer = ByteBuffer.wrap(group);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(false);
+			} catch (IOException e) {
+				synchronized (this) {
+					failure = e;
+					notifyAll();
+				}
+				return;
+			}
+
+			synchronized (this) {
+				durableSequence = last;
+				commits++;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Helper method that tells the committer thread not to wait for a full group, because
+	 * flush() or close() wants the pending records on disk now.
+	 * @return true if the pending records should be committed now
+	 */
+	private boolean flushRequested() {
+		return closed || flushSequence > durableSequence;
+	}
+
+	/**
+	 * Helper method that encodes one record.
+	 * @return bytes of the record
+	 */
+	private static byte[] encode(long sequence, byte operation, int year, Name name) throws IOException {
+		ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(payload);
+		out.writeLong(sequence);
+		out.writeByte(operation);
+		out.writeInt(year);
+		out.writeUTF(name.getName());
+		out.writeUTF(name.getCounty());
+		out.writeUTF(name.getGender());
+		out.writeInt(name.getCount());
+		out.flush();
+		byte[] bytes = payload.toByteArray();
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		ByteBuffer record = ByteBuffer.allocate(8 + bytes.length);
+		record.putInt(bytes.length);
+		record.putInt((int) crc.getValue());
+		record.put(bytes);
+		return record.array();
+	}
+
+	/**
+	 * Method that applies the records of a log file to a directory. Records with a sequence
+	 * number that is not greater than afterSequence are skipped because they are already in
+	 * the snapshot. Replay stops at the first record that is incomplete or fails its checksum,
+	 * which is what a crash in the middle of a commit leaves behind, and the file is cut
+	 * back to the last good record. A complete record that the directory rejects (an
+	 * invalid year or name) is reported and skipped, so it cannot block the recovery.
+	 * @param file (log file) and afterSequence (last sequence number in the snapshot) and target (directory to change)
+	 * @return the last sequence number found in the file, or afterSequence if there was none
+	 * @throws IOException (thrown if the file cannot be read)
+	 */
+	public static long replay(File file, long afterSequence, YearDirectory target) throws IOException {
+		long last = afterSequence;
+		long good = 0;
+		try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			DataInputStream data = new DataInputStream(new BufferedInputStream(Channels.newInputStream(in)));
+			while (true) {
+				byte[] payload;
+				try {
+					int length = data.readInt();
+					int checksum = data.readInt();
+					if (length < 0 || length > 1 << 20) {
+						break;
+					}
+					payload = new byte[length];
+					data.readFully(payload);
+					CRC32 crc = new CRC32();
+					crc.update(payload);
+					if ((int) crc.getValue() != checksum) {
+						break;
+					}
+				} catch (EOFException e) {
+					break;
+				}
+
+				DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+				long sequence = record.readLong();
+				byte operation = record.readByte();
+				int year = record.readInt();
+				String name = record.readUTF();
+				String county = record.readUTF();
+				String gender = record.readUTF();
+				int count = record.readInt();
+				good += 8 + payload.length;
+				if (sequence <= afterSequence) {
+					continue;
+				}
+				try {
+					if (operation == ADD) {
+						target.add(year, new Name(name, gender, count, county));
+					} else if (operation == REMOVE) {
+						target.remove(year, new Name(name, gender, count, county));
+					}
+				} catch (IllegalArgumentException e) {
+					System.err.println("Warning: skipped the invalid record " + sequence + " of " + file.getName() + ": "
+							+ year + "," + name + "," + county + "," + gender + "," + count);
+				}
+				last = sequence;
+			}
+			if (good < in.size()) {
+				in.truncate(good);
+				in.force(false);
+			}
+		}
+		return last;
+	}
+}
@@ -0,0 +1,271 @@
+package project5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class holds all of the YearNames objects of the dataset and finds the YearNames
+ * object that belongs to a specific year. The years are kept in the order in which they
+ * were first added to the directory. Iterating over the directory visits every year in
+ * that order.
+ * @author Sarah Wardles
+ *
+ */
+public class YearDirectory implements Iterable<YearNames>, NameSink {
+
+	//all of the years stored in the directory
+	protected ArrayList<YearNames> allYears = new ArrayList<YearNames>();
+	//bloom filters over the names and (name, county) pairs of every year, null until built
+	protected BloomFilter nameFilter = null;
+	protected BloomFilter countyFilter = null;
+
+	/**
+	 * Default constructor that creates an empty directory.
+	 */
+	public YearDirectory() {
+	}
+
+	/**
+	 * Method that adds a Name object to the YearNames object of the specified year.
+	 * If the year is not in the directory yet then a new YearNames object is created for it.
+	 * @param year (year the name belongs to)
+	 * @param name (Name object to be added)
+	 */
+	@Override
+	public void add(int year, Name name) {
+		YearNames found = getYear(year);
+		//if the year is not found then create a new yearnames obj with it
+		if (found == null) {
+			found = newYear(year);
+			allYears.add(found);
+		}
+		found.add(name);
+		if (nameFilter != null) {
+			String folded = Name.fold(name.getName());
+			nameFilter.add(folded);
+			countyFilter.add(BloomFilter.pairKey(folded, Name.fold(name.getCounty())));
+		}
+	}
+
+	/**
+	 * Method that removes a Name object from the YearNames object of the specified year.
+	 * @param year (year the name belongs to)
+	 * @param name (Name object to be removed, its count is ignored)
+	 * @return true if the name was removed, false if the year or the name was not found
+	 */
+	public boolean remove(int year, Name name) {
+		YearNames found = getYear(year);
+		if (found == null) {
+			return false;
+		}
+		return found.remove(name);
+	}
+
+	/**
+	 * Helper method that creates the YearNames object for a year that is seen for the
+	 * first time. Subclasses override it to choose how a year is stored.
+	 * @param year (year to create)
+	 * @return a new, empty YearNames object
+	 */
+	protected YearNames newYear(int year) {
+		return new YearNames(year);
+	}
+
+	/**
+	 * Method that returns the YearNames object for the specified year.
+	 * @param year (year to find)
+	 * @return the YearNames object or null if the year is not in the directory
+	 */
+	public YearNames getYear(int year) {
+		//iterate over all the years
+		for (int i = 0; i < allYears.size(); i++) {
+			if (allYears.get(i).getYear() == year) {
+				return allYears.get(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Method that returns all of the years in the directory in the order they were added.
+	 * @return array of years
+	 */
+	public int[] getYears() {
+		int[] years = new int[allYears.size()];
+		for (int i = 0; i < years.length; i++) {
+			years[i] = allYears.get(i).getYear();
+		}
+		return years;
+	}
+
+	/**
+	 * Helper method that returns the number of years in the directory.
+	 * @return number of years
+	 */
+	public int size() {
+		return allYears.size();
+	}
+
+	/**
+	 * Method that builds a bloom filter for every year and one for the whole directory,
+	 * so that a query for a name that is not in the dataset is rejected without touching
+	 * any tree.
+	 * @param falsePositiveRate (wanted false positive rate, between 0 and 1)
+	 * @return number of bytes used by all the filters
+	 */
+	public long buildFilters(double falsePositiveRate) {
+		long rows = 0;
+		for (YearNames year : this) {
+			rows += year.size();
+		}
+		BloomFilter names = new BloomFilter(rows, falsePositiveRate);
+		BloomFilter pairs = new BloomFilter(rows, falsePositiveRate);
+		long bytes = names.memoryBytes() + pairs.memoryBytes();
+		for (YearNames year : this) {
+			year.buildFilters(falsePositiveRate);
+			bytes += year.filterBytes();
+			for (Name name : year) {
+				String folded = Name.fold(name.getName());
+				names.add(folded);
+				pairs.add(BloomFilter.pairKey(folded, Name.fold(name.getCounty())));
+			}
+		}
+		nameFilter = names;
+		countyFilter = pairs;
+		return bytes;
+	}
+
+	/**
+	 * Method that checks the bloom filter of the directory for a name.
+	 * @param name (name to check)
+	 * @return false if the name is certainly not in any year, true if it may be (or if
+	 * the filters were not built)
+	 */
+	public boolean mightContain(String name) {
+		return nameFilter == null || nameFilter.mightContain(Name.fold(name));
+	}
+
+	/**
+	 * Method that checks the bloom filter of the directory for a (name, county) pair.
+	 * @param name (name to check) and county (county to check)
+	 * @return false if the pair is certainly not in any year, true if it may be (or if
+	 * the filters were not built)
+	 */
+	public boolean mightContain(String name, String county) {
+		return countyFilter == null || countyFilter.mightContain(BloomFilter.pairKey(Name.fold(name), Name.fold(county)));
+	}
+
+	/**
+	 * Method that checks the bloom filters of the directory for the name of a key, and for
+	 * its (name, county) pair if it has a county, using the hashes of the key.
+	 * @param key (key to check)
+	 * @return false if the key is certainly not in any year, true if it may be (or if the
+	 * filters were not built)
+	 */
+	public boolean mightContain(NameKey key) {
+		if (nameFilter == null) {
+			return true;
+		}
+		return nameFilter.mightContainHash(key.nameHash) && (!key.hasCounty() || countyFilter.mightContainHash(key.pairHash));
+	}
+
+	/**
+	 * Method that fills a buffer with the number of babies of a key in every year, in the
+	 * order of getYears(): with the name in all counties, or in the county of the key. The
+	 * years of the directory are not copied and the key is not folded again, so a caller
+	 * that reuses the key and the buffer queries without allocating.
+	 * @param key (key of the query) and counts (buffer of at least size() entries)
+	 * @return true if the key was found in any year
+	 * @throws IllegalArgumentException (thrown if the buffer is too short)
+	 */
+	public boolean counts(NameKey key, int[] counts) {
+		int size = size();
+		if (counts.length < size) {
+			throw new IllegalArgumentException("The buffer must hold " + size + " years.");
+		}
+		if (!mightContain(key)) {
+			Arrays.fill(counts, 0, size, 0);
+			return false;
+		}
+		boolean found = false;
+		for (int i = 0; i < size; i++) {
+			YearNames year = yearAt(i);
+			counts[i] = key.hasCounty() ? year.getCountByNameCounty(key) : year.getCountByName(key);
+			found |= counts[i] > 0;
+		}
+		return found;
+	}
+
+	/**
+	 * Method that fills a buffer with the fraction of a key in every year, in the order of
+	 * getYears(): like YearNames.getFractionByName() for a key without a county and like
+	 * YearNames.getFractionByNameCounty() for a key with one. Like counts(), it does not
+	 * allocate.
+	 * @param key (key of the query) and fractions (buffer of at least size() entries)
+	 * @return true if the key was found in any year
+	 * @throws IllegalArgumentException (thrown if the buffer is too short)
+	 */
+	public boolean fractions(NameKey key, double[] fractions) {
+		int size = size();
+		if (fractions.length < size) {
+			throw new IllegalArgumentException("The buffer must hold " + size + " years.");
+		}
+		if (!mightContain(key)) {
+			Arrays.fill(fractions, 0, size, 0);
+			return false;
+		}
+		boolean found = false;
+		for (int i = 0; i < size; i++) {
+			fractions[i] = yearAt(i).getFraction(key);
+			found |= fractions[i] > 0;
+		}
+		return found;
+	}
+
+	/**
+	 * Helper method that returns the YearNames object at a position of getYears().
+	 * @param index (position of the year)
+	 * @return the YearNames object
+	 */
+	protected YearNames yearAt(int index) {
+		return allYears.get(index);
+	}
+
+	/**
+	 * Method that returns an iterator over the YearNames objects of every year, in the
+	 * order returned by getYears().
+	 * @see java.lang.Iterable#iterator()
+	 * @return iterator over all the years
+	 */
+	@Override
+	public Iterator<YearNames> iterator() {
+		final int[] years = getYears();
+		return new Iterator<YearNames>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < years.length;
+			}
+
+			@Override
+			public YearNames next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getYear(years[next++]);
+			}
+		};
+	}
+
+	/**
+	 * This method returns a string representation of the YearDirectory object
+	 * @return a string representation of a YearDirectory object
+	 */
+	@Override
+	public String toString() {
+		return "Number of years:" + size();
+	}
+}
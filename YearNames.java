@@ -15,6 +15,9 @@ public class YearNames extends AVLTree<Name> {
 	protected int year = 0;
 	//variable to hold the total number of births for one year
 	protected int totalBirths = 0;
+	//bloom filters over the folded names and (name, county) pairs, null until built
+	protected BloomFilter nameFilter = null;
+	protected BloomFilter countyFilter = null;
 	
 	/**
 	 * This is the constructor for the YearNames object. There is no default constructor.
@@ -25,13 +28,22 @@ public class YearNames extends AVLTree<Name> {
 	 */
 	public YearNames(int year) {
 		//check if the year is valid
-		if (year < 1900 || year > 2018 ) {
+		if (!isValidYear(year)) {
 			throw new IllegalArgumentException("Then program must take a valid year as a parameter.");
 		}
 		
 		this.year = year;
 	}
 
+	/**
+	 * Helper method that checks whether a YearNames object can be created for a year.
+	 * @param year (year to check)
+	 * @return true if the year is between 1900 and 2018
+	 */
+	public static boolean isValidYear(int year) {
+		return year >= 1900 && year <= 2018;
+	}
+
 	/**
 	 * Helper method that returns the year for a specific YearNames object.
 	 * @return this.year
@@ -48,6 +60,82 @@ public class YearNames extends AVLTree<Name> {
 	public void add(Name name) {
 		super.add(name);
 		this.totalBirths += name.getCount();
+		addToFilters(name);
+	}
+	
+	/**
+	 * Method that builds the bloom filters of this year from the names it holds. Names
+	 * added afterwards are added to the filters too; removed names stay in them, which
+	 * only costs a tree walk for that name.
+	 * @param falsePositiveRate (wanted false positive rate, between 0 and 1)
+	 */
+	public void buildFilters(double falsePositiveRate) {
+		BloomFilter names = new BloomFilter(size(), falsePositiveRate);
+		BloomFilter pairs = new BloomFilter(size(), falsePositiveRate);
+		for (Name name : this) {
+			String folded = Name.fold(name.getName());
+			names.add(folded);
+			pairs.add(BloomFilter.pairKey(folded, Name.fold(name.getCounty())));
+		}
+		nameFilter = names;
+		countyFilter = pairs;
+	}
+	
+	/**
+	 * Helper method that adds a name to the bloom filters if they were built.
+	 * @param name (Name object that was added to this year)
+	 */
+	protected void addToFilters(Name name) {
+		if (nameFilter != null) {
+			String folded = Name.fold(name.getName());
+			nameFilter.add(folded);
+			countyFilter.add(BloomFilter.pairKey(folded, Name.fold(name.getCounty())));
+		}
+	}
+	
+	/**
+	 * Method that checks the bloom filter for a name.
+	 * @param name (name to check)
+	 * @return false if the name is certainly not in this year, true if it may be (or if
+	 * the filters were not built)
+	 */
+	public boolean mightContain(String name) {
+		return nameFilter == null || nameFilter.mightContain(Name.fold(name));
+	}
+	
+	/**
+	 * Method that checks the bloom filter for a (name, county) pair.
+	 * @param name (name to check) and county (county to check)
+	 * @return false if the pair is certainly not in this year, true if it may be (or if
+	 * the filters were not built)
+	 */
+	public boolean mightContain(String name, String county) {
+		return countyFilter == null || countyFilter.mightContain(BloomFilter.pairKey(Name.fold(name), Name.fold(county)));
+	}
+	
+	/**
+	 * Helper method that returns the number of bytes used by the bloom filters of this year.
+	 * @return bytes used by the filters
+	 */
+	public long filterBytes() {
+		return nameFilter == null ? 0 : nameFilter.memoryBytes() + countyFilter.memoryBytes();
+	}
+	
+	/**
+	 * Method that removes a Name object from this instance of YearNames. The count of the
+	 * parameter is ignored; the count of the stored Name object is taken off the number
+	 * of babies born in that year.
+	 * @param name (Name object to be removed)
+	 * @return true if the name was removed, false if it was not found
+	 */
+	public boolean remove(Name name) {
+		Name stored = get(name);
+		if (stored == null) {
+			return false;
+		}
+		super.remove(stored);
+		this.totalBirths -= stored.getCount();
+		return true;
 	}
 	
 	//traverse the tree
@@ -62,6 +150,10 @@ public class YearNames extends AVLTree<Name> {
 	 */
 	public int getCountByName (String name) {
 		int count = 0;
+		//skip the tree for names the filter rules out
+		if (!mightContain(name)) {
+			return 0;
+		}
 		
 		count += getCountByName(name, this.root);
 		
@@ -100,7 +192,7 @@ public class YearNames extends AVLTree<Name> {
 	 */
 	public double getFractionByName (String name) {
 		//if the tree is empty return 0
-		if (totalBirths == 0) { 
+		if (totalBirths == 0 || !mightContain(name)) { 
 			return 0;
 		}
 		double fract = 0;
@@ -119,46 +211,39 @@ public class YearNames extends AVLTree<Name> {
 	*/
 	public int getCountByNameCounty (String name, String county) {
 		int count = 0;
+		//skip the tree for pairs the filter rules out
+		if (!mightContain(name, county)) {
+			return 0;
+		}
 		
-		count = getCountByNameCounty(name, county, this.root, count);
+		count = getCountByNameCounty(name, county, this.root);
 		
 		return count;
 	}
 	
 	/**
 	* Actual recursive inplementation of the getCountByNameCounty method
-	*@param name (name to be found) and county (county to be found) and node (node to start recursion from) and count (count to return)
-	*@return count (number of babies found)
+	*@param name (name to be found) and county (county to be found) and node (node to start recursion from)
+	*@return count (number of babies found in the subtree)
 	*/
-	protected int getCountByNameCounty(String name, String county, Node<Name> node, int count) {
+	protected int getCountByNameCounty(String name, String county, Node<Name> node) {
 		//if reach a leaf
 		if (node == null) {
 			return 0; 
 		}
-		//if the name is less than node.name traverse left
-		if (name.compareToIgnoreCase(node.getData().getName()) < 0) {
-			count += getCountByNameCounty(name, county, node.left, count);
+		//compare by name first and by county for the same name
+		int compare = name.compareToIgnoreCase(node.getData().getName());
+		if (compare == 0) {
+			compare = county.compareToIgnoreCase(node.getData().getCounty());
 		}
-		//if the name is more than the node.name traverse right
-		if (name.compareToIgnoreCase(node.getData().getName()) > 0) {
-			count += getCountByNameCounty(name, county,  node.right, count);
+		if (compare < 0) {
+			return getCountByNameCounty(name, county, node.left);
 		}
-		//if the name is the same
-		if (name.equalsIgnoreCase(node.getData().getName())) { 
-			//if the county is less than the node.county traverse left
-			if (county.compareToIgnoreCase(node.getData().getCounty()) < 0) {
-				count += getCountByNameCounty(name, county, node.left, count);
-			}
-			//if the county is more than the node.county traverse right
-			if (county.compareToIgnoreCase(node.getData().getCounty()) > 0) {
-				count += getCountByNameCounty(name, county, node.right, count);
-			}
-			//if the counties are the same then increment the counter
-			if (county.equalsIgnoreCase(node.getData().getCounty())) { 
-				count += node.getData().getCount() + getCountByNameCounty(name, county, node.left, count) + getCountByNameCounty(name, county, node.right, count);
-			}
+		if (compare > 0) {
+			return getCountByNameCounty(name, county, node.right);
 		}
-		return count;
+		//the genders of the pair can be on both sides
+		return node.getData().getCount() + getCountByNameCounty(name, county, node.left) + getCountByNameCounty(name, county, node.right);
 	}
 
 	/**
@@ -168,15 +253,23 @@ public class YearNames extends AVLTree<Name> {
 	*@return fract (the fraction of babies found)
 	*/
 	public double getFractionByNameCounty (String name, String county) {
+		//names the filter rules out need no walk over the whole tree
+		if (!mightContain(name, county)) {
+			return 0;
+		}
+		double fract = 0;
+		
+		fract = (double) getCountByNameCounty(name, county); //get the number of babies for that name
+		//if the name is not in the county the fraction is 0 whatever the county holds
+		if (fract == 0) {
+			return 0;
+		}
 		//traverse the tree to find all the occurances of babies in that county
 		double allBabies = (double) allBabiesInCounty(county);
 		//if tree is empty return 0
 		if (allBabies == 0) { 
 			return 0;
 		}
-		double fract = 0;
-		
-		fract = (double) getCountByNameCounty(name, county); //get the number of babies for that name
 		fract /= allBabies; 
 		
 		return fract;
@@ -216,6 +309,149 @@ public class YearNames extends AVLTree<Name> {
 	}
 	
 	
+	/**
+	 * Method that checks the bloom filters for the name of a key, or for its (name, county)
+	 * pair if it has a county, using the hashes of the key.
+	 * @param key (key to check)
+	 * @return false if the key is certainly not in this year, true if it may be (or if the
+	 * filters were not built)
+	 */
+	public boolean mightContain(NameKey key) {
+		if (key.hasCounty()) {
+			return countyFilter == null || countyFilter.mightContainHash(key.pairHash);
+		}
+		return nameFilter == null || nameFilter.mightContainHash(key.nameHash);
+	}
+
+	/**
+	 * Method that returns the number of babies with the name of a key, both genders. Like
+	 * getCountByName(String) but with the key folded once, and without allocating.
+	 * @param key (key of the query, its county is ignored)
+	 * @return count (number of babies found with that name in year)
+	 */
+	public int getCountByName(NameKey key) {
+		if (nameFilter != null && !nameFilter.mightContainHash(key.nameHash)) {
+			return 0;
+		}
+		return getCountByName(key, this.root);
+	}
+
+	/**
+	* Actual recursive implementation of getCountByName(NameKey).
+	* @param key (key to find) and node (the node to begin recursion from)
+	* @return count (number of babies found in the subtree)
+	*/
+	protected int getCountByName(NameKey key, Node<Name> node) {
+		if (node == null) {
+			return 0;
+		}
+		int compare = key.compareName(node.getData().getName());
+		if (compare < 0) {
+			return getCountByName(key, node.left);
+		}
+		if (compare > 0) {
+			return getCountByName(key, node.right);
+		}
+		return node.getData().getCount() + getCountByName(key, node.left) + getCountByName(key, node.right);
+	}
+
+	/**
+	* Method that returns the number of babies with the name of a key in its county, both
+	* genders. Like getCountByNameCounty(String, String) but with the key folded once, and
+	* without allocating.
+	* @param key (key of the query, must have a county)
+	* @return count (number of babies)
+	*/
+	public int getCountByNameCounty(NameKey key) {
+		if (!mightContain(key)) {
+			return 0;
+		}
+		return getCountByNameCounty(key, this.root);
+	}
+
+	/**
+	* Actual recursive implementation of getCountByNameCounty(NameKey).
+	* @param key (key to find) and node (the node to begin recursion from)
+	* @return count (number of babies found in the subtree)
+	*/
+	protected int getCountByNameCounty(NameKey key, Node<Name> node) {
+		if (node == null) {
+			return 0;
+		}
+		int compare = key.compareName(node.getData().getName());
+		if (compare == 0) {
+			compare = key.compareCounty(node.getData().getCounty());
+		}
+		if (compare < 0) {
+			return getCountByNameCounty(key, node.left);
+		}
+		if (compare > 0) {
+			return getCountByNameCounty(key, node.right);
+		}
+		return node.getData().getCount() + getCountByNameCounty(key, node.left) + getCountByNameCounty(key, node.right);
+	}
+
+	/**
+	* Helper method to find the number of babies in the county of a key.
+	* @param key (key whose county to find)
+	* @return count (number of babies found)
+	*/
+	protected int allBabiesInCounty(NameKey key) {
+		return allBabiesInCounty(key, this.root);
+	}
+
+	/**
+	* Actual recursive implementation of allBabiesInCounty(NameKey).
+	* @param key (key whose county to find) and node (node to begin recursion at)
+	* @return count (number of babies found)
+	*/
+	protected int allBabiesInCounty(NameKey key, Node<Name> node) {
+		if (node == null) {
+			return 0;
+		}
+		int count = allBabiesInCounty(key, node.left) + allBabiesInCounty(key, node.right);
+		if (key.compareCounty(node.getData().getCounty()) == 0) {
+			count += node.getData().getCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Method that returns the fraction of a key: like getFractionByName() for a key without
+	 * a county and like getFractionByNameCounty() for a key with one, without allocating.
+	 * @param key (key of the query)
+	 * @return fraction
+	 */
+	public double getFraction(NameKey key) {
+		if (!key.hasCounty()) {
+			if (totalBirths == 0) {
+				return 0;
+			}
+			return (double) getCountByName(key) / totalBirths;
+		}
+		int count = getCountByNameCounty(key);
+		//if the name is not in the county the fraction is 0 whatever the county holds
+		if (count == 0) {
+			return 0;
+		}
+		int allBabies = allBabiesInCounty(key);
+		if (allBabies == 0) {
+			return 0;
+		}
+		return (double) count / allBabies;
+	}
+
+	/**
+	 * Helper method that adds every Name object of this year to a list in tree order.
+	 * @param list (list that accumulates the names)
+	 */
+	protected void collect(ArrayList<Name> list) {
+		for (Name name : this) {
+			list.add(name);
+		}
+	}
+	
+	
 	/**
 	 * This method compares two YearNames objects and returns true if the objects are equal
 	 * or false if the objects are not equal.